@@ -0,0 +1,72 @@
+package com.bookkeeper.AssetSummary.client;
+
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.service.AssetSummaryService;
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Batch mode replacement for {@link DirectReceiver}, enabled with {@code rabbitmqConfig.batch.enabled=true}.
+ * A whole batch is applied in one transaction and acknowledged with a single multiple-ack. If the batch fails
+ * it is replayed message by message so only the offending messages go to the {@link RetryRouter}.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "rabbitmqConfig.batch.enabled", havingValue = "true")
+public class BatchReceiver {
+
+    @Autowired
+    AssetSummaryService assetSummaryService;
+
+    @Autowired
+    RetryRouter retryRouter;
+
+    @RabbitListener(queues = "${rabbitmqConfig.queue}", containerFactory = "batchRabbitListenerContainerFactory")
+    public void process(List<Message<AssetMessage>> messages, Channel channel) throws IOException {
+
+        if(messages.isEmpty())
+            return;
+
+        try {
+            assetSummaryService.processMessageBatch(messages.stream().map(Message::getPayload).toList());
+            channel.basicAck(deliveryTag(messages.get(messages.size() - 1)), true);
+        } catch (Exception e) {
+            log.warn("Batch of {} messages failed, falling back to single message processing: {}", messages.size(), e.getMessage());
+            processIndividually(messages, channel);
+        }
+    }
+
+    private void processIndividually(List<Message<AssetMessage>> messages, Channel channel) throws IOException {
+
+        for(Message<AssetMessage> message : messages) {
+            long deliveryTag = deliveryTag(message);
+            try {
+                assetSummaryService.processMessage(message.getPayload());
+            } catch (Exception e) {
+                log.error("Process message encounter exception: ", e);
+                try {
+                    retryRouter.reject(message.getPayload(), RetryRouter.attempt(message.getHeaders().get(RetryRouter.ATTEMPT_HEADER)), e);
+                } catch (AmqpException republishFailure) {
+                    log.error("Failed to republish message {} for retry: ", deliveryTag, republishFailure);
+                    channel.basicNack(deliveryTag, false, false);
+                    continue;
+                }
+            }
+            channel.basicAck(deliveryTag, false);
+        }
+    }
+
+    private long deliveryTag(Message<?> message) {
+        return message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
+    }
+}
@@ -1,38 +1,79 @@
 package com.bookkeeper.AssetSummary.client;
 
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
 import com.bookkeeper.AssetSummary.service.AssetSummaryService;
 import com.rabbitmq.client.Channel;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.HashMap;
 
 @Component
 @Slf4j
+@ConditionalOnProperty(name = "rabbitmqConfig.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class DirectReceiver {
 
     @Autowired
     AssetSummaryService assetSummaryService;
 
+    @Autowired
+    LaneDispatcher laneDispatcher;
+
+    @Autowired
+    RetryRouter retryRouter;
+
+    /**
+     * Hands the message to the lane of its user and returns straight away, so messages of other users keep
+     * flowing while it is processed. Every message is acked individually from its lane; a failed one is handed
+     * to the {@link RetryRouter} and acked as well. Anything that escapes the lane is logged, since nobody else
+     * waits on its future; such a message stays unacked and is redelivered once the channel closes.
+     */
     @RabbitListener(queues = "${rabbitmqConfig.queue}")
-    public void process(HashMap<String, Object> message,
+    public void process(AssetMessage message,
                         Channel channel,
-                        @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) throws IOException {
-        try {
+                        @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                        @Header(name = RetryRouter.ATTEMPT_HEADER, required = false) Integer attempt) {
 
-            if(message.get("cancel") == null)
-                assetSummaryService.cancelTransaction(message);
+        laneDispatcher.dispatch(message.getUid(), () -> handle(message, channel, deliveryTag, RetryRouter.attempt(attempt)))
+                .whenComplete((result, e) -> {
+                    if(e != null)
+                        log.error("Message {} of user {} failed in its lane: ", deliveryTag, message.getUid(), e);
+                });
+    }
 
-            assetSummaryService.updateAssetWithMessageQueue(message);
+    private void handle(AssetMessage message, Channel channel, long deliveryTag, int attempt) {
+        try {
+            try {
+                assetSummaryService.processMessage(message);
+            } catch (Exception e) {
+                log.error("Process message encounter exception: ", e);
+                if(!reject(message, attempt, e, channel, deliveryTag))
+                    return;
+            }
             channel.basicAck(deliveryTag, false);
-        } catch (Exception e) {
-            log.error("Process message encounter exception: ", e);
+        } catch (IOException e) {
+            log.error("Failed to acknowledge message {}: ", deliveryTag, e);
+        }
+    }
+
+    /**
+     * @return whether the failed message was republished and can be acked; if publishing failed it is nacked
+     * without requeue, which drops it unless the asset queue was declared with a dead-letter exchange by its owner
+     */
+    private boolean reject(AssetMessage message, int attempt, Exception cause, Channel channel, long deliveryTag) throws IOException {
+        try {
+            retryRouter.reject(message, attempt, cause);
+            return true;
+        } catch (AmqpException e) {
+            log.error("Failed to republish message {} for retry: ", deliveryTag, e);
             channel.basicNack(deliveryTag, false, false);
+            return false;
         }
     }
 }
@@ -0,0 +1,81 @@
+package com.bookkeeper.AssetSummary.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+
+/**
+ * Spreads MQ work over a fixed number of single-threaded lanes. A key (the user uid) always hashes to the same
+ * lane, so work for one user runs strictly in submission order while different users run in parallel.
+ * Ordering only holds if the listener container feeding the dispatcher runs a single consumer.
+ */
+@Slf4j
+@Component
+public class LaneDispatcher implements DisposableBean {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    private final Timer[] laneLatency;
+
+    public LaneDispatcher(@Value("${rabbitmqConfig.lanes:0}") int laneCount, MeterRegistry meterRegistry) {
+        int size = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        lanes = new ThreadPoolExecutor[size];
+        laneLatency = new Timer[size];
+
+        for(int i = 0; i < size; i++) {
+            String lane = String.valueOf(i);
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, "mq-lane-" + lane));
+            laneLatency[i] = Timer.builder("asset.mq.lane.latency")
+                    .description("Time from dispatch until the lane finished the message")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("asset.mq.lane.depth", lanes[i].getQueue(), BlockingQueue::size)
+                    .description("Messages waiting in the lane")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+        }
+        log.info("Dispatching MQ messages over {} lanes", size);
+    }
+
+    public CompletableFuture<Void> dispatch(String key, Runnable task) {
+
+        int lane = laneOf(key);
+        long dispatchedAt = System.nanoTime();
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } finally {
+                laneLatency[lane].record(System.nanoTime() - dispatchedAt, TimeUnit.NANOSECONDS);
+            }
+        }, lanes[lane]);
+    }
+
+    int laneOf(String key) {
+
+        if(key == null)
+            return 0;
+
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+
+        for(ThreadPoolExecutor lane : lanes)
+            lane.shutdown();
+
+        for(ThreadPoolExecutor lane : lanes) {
+            if(!lane.awaitTermination(10, TimeUnit.SECONDS))
+                log.warn("Lane did not drain in time, {} messages will be redelivered", lane.getQueue().size());
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.bookkeeper.AssetSummary.client;
+
+import com.bookkeeper.AssetSummary.config.RetryTopology;
+import com.bookkeeper.AssetSummary.model.dto.ReplayState;
+import com.bookkeeper.AssetSummary.model.dto.ReplayStatus;
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.service.AssetSummaryService;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Drains the parking-lot queue back through the normal processing path. A replay runs in the background on its
+ * own thread, pulls the queue in batches and dispatches every message to the lane of its user, exactly as
+ * {@link DirectReceiver} does, so it stays ordered with live messages of the same user. A token bucket caps the
+ * rate, leaving the lanes and the database to live traffic. A message that fails again is put back at the
+ * tail of the parking lot with the new error; it is not retried within the same replay.
+ * Messages are acked only after their outcome is known, so a crash mid-batch leaves them in the parking lot.
+ */
+@Slf4j
+@Component
+public class ParkingLotReplayer implements DisposableBean {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    private final RetryTopology retryTopology;
+
+    private final MessageConverter messageConverter;
+
+    private final LaneDispatcher laneDispatcher;
+
+    private final AssetSummaryService assetSummaryService;
+
+    private final int defaultBatchSize;
+
+    private final double defaultRate;
+
+    private final Counter succeeded;
+
+    private final Counter failed;
+
+    private final MessagePropertiesConverter propertiesConverter = new DefaultMessagePropertiesConverter();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "mq-replay"));
+
+    private volatile Job job;
+
+    public ParkingLotReplayer(RabbitTemplate rabbitTemplate,
+                              RetryTopology retryTopology,
+                              MessageConverter messageConverter,
+                              LaneDispatcher laneDispatcher,
+                              AssetSummaryService assetSummaryService,
+                              MeterRegistry meterRegistry,
+                              @Value("${asset.replay.batch-size:100}") int defaultBatchSize,
+                              @Value("${asset.replay.rate:200}") double defaultRate) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.retryTopology = retryTopology;
+        this.messageConverter = messageConverter;
+        this.laneDispatcher = laneDispatcher;
+        this.assetSummaryService = assetSummaryService;
+        this.defaultBatchSize = defaultBatchSize;
+        this.defaultRate = defaultRate;
+        this.succeeded = Counter.builder("asset.replay.messages")
+                .description("Parking-lot messages replayed")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failed = Counter.builder("asset.replay.messages")
+                .description("Parking-lot messages replayed")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a replay in the background.
+     *
+     * @param batchSize messages pulled per batch, the configured default if null
+     * @param rate      messages per second, the configured default if null
+     * @param limit     maximum messages to replay, the whole parking lot if null
+     */
+    public synchronized ReplayStatus start(Integer batchSize, Double rate, Long limit) {
+
+        int size = batchSize != null ? batchSize : defaultBatchSize;
+        double perSecond = rate != null ? rate : defaultRate;
+        if(size < 1 || !(perSecond > 0) || (limit != null && limit < 1))
+            throw new GlobalException("0210", "Invalid request");
+
+        if(job != null && job.state == ReplayState.RUNNING)
+            throw new GlobalException("0218", "Replay already running");
+
+        Job started = new Job(size, perSecond, limit != null ? limit : Long.MAX_VALUE);
+        job = started;
+        executor.execute(() -> run(started));
+        log.info("Started replay {} of {} in batches of {} at {} msg/s", started.id, retryTopology.parkingLot(), size, perSecond);
+        return started.status();
+    }
+
+    /**
+     * Replays whatever the parking lot holds with the configured defaults, unless a replay is already running.
+     * Disabled unless {@code asset.replay.cron} is set.
+     */
+    @Scheduled(cron = "${asset.replay.cron:-}")
+    public void scheduledReplay() {
+        try {
+            start(null, null, null);
+        } catch (GlobalException e) {
+            log.info("Skipping scheduled replay: {}", e.getMessage());
+        }
+    }
+
+    public ReplayStatus status() {
+
+        Job current = job;
+        if(current == null)
+            throw new GlobalException("0219", "Replay not found");
+
+        return current.status();
+    }
+
+    /**
+     * Asks the running replay to stop after its current batch.
+     */
+    public ReplayStatus stop() {
+
+        Job current = job;
+        if(current == null)
+            throw new GlobalException("0219", "Replay not found");
+
+        current.stopRequested = true;
+        return current.status();
+    }
+
+    private void run(Job job) {
+        try {
+            String parkingLot = retryTopology.parkingLot();
+            long depth = rabbitTemplate.execute(channel -> channel.messageCount(parkingLot));
+            job.total = Math.min(depth, job.limit);
+
+            TokenBucket tokenBucket = new TokenBucket(job.rate, job.batchSize);
+            while(!job.stopRequested && job.processed < job.total) {
+                int size = (int) Math.min(job.batchSize, job.total - job.processed);
+                Integer replayed = rabbitTemplate.execute(channel -> replayBatch(channel, size, tokenBucket, job));
+                if(replayed == null || replayed == 0)
+                    break;
+            }
+            job.finish(job.stopRequested ? ReplayState.STOPPED : ReplayState.COMPLETED, null);
+        } catch (Exception e) {
+            log.error("Replay {} failed: ", job.id, e);
+            job.finish(ReplayState.FAILED, e.getMessage());
+        }
+        log.info("Replay {} {}: {} of {} messages, {} succeeded, {} failed", job.id, job.state, job.processed,
+                job.total, job.succeeded, job.failed);
+    }
+
+    private int replayBatch(Channel channel, int size, TokenBucket tokenBucket, Job job) throws Exception {
+
+        List<GetResponse> responses = new ArrayList<>(size);
+        List<CompletableFuture<Void>> outcomes = new ArrayList<>(size);
+        for(int i = 0; i < size; i++) {
+            GetResponse response = channel.basicGet(retryTopology.parkingLot(), false);
+            if(response == null)
+                break;
+
+            tokenBucket.acquire();
+            responses.add(response);
+            outcomes.add(dispatch(response));
+        }
+
+        for(int i = 0; i < responses.size(); i++) {
+            GetResponse response = responses.get(i);
+            try {
+                outcomes.get(i).join();
+                job.succeeded++;
+                succeeded.increment();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Replayed message {} failed again: {}", response.getEnvelope().getDeliveryTag(), cause.getMessage());
+                park(channel, response, cause);
+                job.failed++;
+                failed.increment();
+            }
+            channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+            job.processed++;
+        }
+        return responses.size();
+    }
+
+    private CompletableFuture<Void> dispatch(GetResponse response) {
+
+        AssetMessage message;
+        try {
+            MessageProperties properties = propertiesConverter.toMessageProperties(response.getProps(), response.getEnvelope(), "UTF-8");
+            properties.setInferredArgumentType(AssetMessage.class);
+            message = (AssetMessage) messageConverter.fromMessage(new Message(response.getBody(), properties));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return laneDispatcher.dispatch(message.getUid(), () -> assetSummaryService.processMessage(message));
+    }
+
+    private void park(Channel channel, GetResponse response, Throwable cause) throws Exception {
+
+        Map<String, Object> headers = response.getProps().getHeaders() != null
+                ? new HashMap<>(response.getProps().getHeaders())
+                : new HashMap<>();
+        headers.put(RetryRouter.ERROR_HEADER, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        AMQP.BasicProperties properties = response.getProps().builder().headers(headers).build();
+        channel.basicPublish("", retryTopology.parkingLot(), properties, response.getBody());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+
+        Job current = job;
+        if(current != null)
+            current.stopRequested = true;
+
+        executor.shutdown();
+        if(!executor.awaitTermination(30, TimeUnit.SECONDS))
+            log.warn("Replay did not stop in time, its unacked messages return to the parking lot");
+    }
+
+    /**
+     * Counters are only written by the replay thread and read by status requests.
+     */
+    private static final class Job {
+
+        private final String id = UUID.randomUUID().toString();
+
+        private final int batchSize;
+
+        private final double rate;
+
+        private final long limit;
+
+        private final LocalDateTime startedAt = LocalDateTime.now().withNano(0);
+
+        private final long startedNanos = System.nanoTime();
+
+        private volatile ReplayState state = ReplayState.RUNNING;
+
+        private volatile boolean stopRequested;
+
+        private volatile long total;
+
+        private volatile long processed;
+
+        private volatile long succeeded;
+
+        private volatile long failed;
+
+        private volatile long finishedNanos;
+
+        private volatile LocalDateTime finishedAt;
+
+        private volatile String error;
+
+        private Job(int batchSize, double rate, long limit) {
+            this.batchSize = batchSize;
+            this.rate = rate;
+            this.limit = limit;
+        }
+
+        private void finish(ReplayState finalState, String failure) {
+            error = failure;
+            finishedNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now().withNano(0);
+            state = finalState;
+        }
+
+        private ReplayStatus status() {
+
+            long end = state == ReplayState.RUNNING ? System.nanoTime() : finishedNanos;
+            double seconds = (end - startedNanos) / 1e9;
+            return ReplayStatus.builder()
+                    .id(id)
+                    .state(state)
+                    .batchSize(batchSize)
+                    .rate(rate)
+                    .total(total)
+                    .processed(processed)
+                    .succeeded(succeeded)
+                    .failed(failed)
+                    .throughput(seconds > 0 ? processed / seconds : 0)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.bookkeeper.AssetSummary.client;
+
+import com.bookkeeper.AssetSummary.config.RetryTopology;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes a message that failed processing off the consumer. It is republished to the retry queue of its next
+ * attempt, from where it returns to the asset queue once the delay expired, or to the parking lot once every
+ * delay was used. The caller acks the original as soon as this returns, so a poison message never occupies a
+ * consumer for longer than one failed attempt.
+ */
+@Slf4j
+@Component
+public class RetryRouter {
+
+    /**
+     * Number of retries a message already went through, absent on the first delivery.
+     */
+    public static final String ATTEMPT_HEADER = "x-retry-attempt";
+
+    public static final String ERROR_HEADER = "x-last-error";
+
+    private final AmqpTemplate amqpTemplate;
+
+    private final RetryTopology retryTopology;
+
+    private final Counter retried;
+
+    private final Counter parked;
+
+    public RetryRouter(AmqpTemplate amqpTemplate, RetryTopology retryTopology, MeterRegistry meterRegistry) {
+        this.amqpTemplate = amqpTemplate;
+        this.retryTopology = retryTopology;
+        this.retried = Counter.builder("asset.mq.retry")
+                .description("Failed messages sent to a delayed retry queue")
+                .register(meterRegistry);
+        this.parked = Counter.builder("asset.mq.parked")
+                .description("Failed messages that used up every retry and were parked")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param attempt value of {@link #ATTEMPT_HEADER} on the failed delivery
+     */
+    public void reject(AssetMessage message, int attempt, Exception cause) {
+
+        int next = attempt + 1;
+        String error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+
+        if(next > retryTopology.maxRetries()) {
+            log.error("Message of user {} failed after {} retries, parking it: {}", message.getUid(), attempt, error);
+            amqpTemplate.convertAndSend("", retryTopology.parkingLot(), message, raw -> {
+                raw.getMessageProperties().setHeader(ATTEMPT_HEADER, attempt);
+                raw.getMessageProperties().setHeader(ERROR_HEADER, error);
+                return raw;
+            });
+            parked.increment();
+            return;
+        }
+
+        log.warn("Message of user {} failed, retry {} of {}: {}", message.getUid(), next, retryTopology.maxRetries(), error);
+        amqpTemplate.convertAndSend(retryTopology.exchange(), retryTopology.retryQueue(next), message, raw -> {
+            raw.getMessageProperties().setHeader(ATTEMPT_HEADER, next);
+            raw.getMessageProperties().setHeader(ERROR_HEADER, error);
+            return raw;
+        });
+        retried.increment();
+    }
+
+    /**
+     * Reads {@link #ATTEMPT_HEADER}, which arrives as whatever integer type the broker decoded.
+     */
+    public static int attempt(Object header) {
+        return header instanceof Number number ? number.intValue() : 0;
+    }
+}
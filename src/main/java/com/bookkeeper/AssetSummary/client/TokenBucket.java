@@ -0,0 +1,60 @@
+package com.bookkeeper.AssetSummary.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Blocking token bucket. Tokens refill continuously at {@code ratePerSecond} up to {@code capacity}, and
+ * {@link #acquire()} waits until one is available, so a caller can burst up to the capacity and is then held
+ * to the rate.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+
+    private final double capacity;
+
+    private final LongSupplier clock;
+
+    private double tokens;
+
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, int capacity, LongSupplier clock) {
+        if(!(ratePerSecond > 0) || capacity < 1)
+            throw new IllegalArgumentException("Rate and capacity must be positive");
+
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    public void acquire() throws InterruptedException {
+
+        long wait;
+        while((wait = tryAcquire()) > 0)
+            TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available
+     */
+    synchronized long tryAcquire() {
+
+        long now = clock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+
+        if(tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+}
@@ -2,29 +2,24 @@ package com.bookkeeper.AssetSummary.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.AcknowledgeMode;
-import org.springframework.amqp.rabbit.config.RetryInterceptorBuilder;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
-import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.retry.RetryCallback;
-import org.springframework.retry.RetryContext;
-import org.springframework.retry.RetryListener;
-import org.springframework.retry.backoff.ExponentialBackOffPolicy;
-import org.springframework.retry.policy.SimpleRetryPolicy;
-import org.springframework.retry.support.RetryTemplate;
 
 import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @Slf4j
@@ -33,8 +28,17 @@ public class RabbitConfig {
     @Autowired
     private ConnectionFactory rabbitConnectionFactory;
 
-    @Autowired
-    private RabbitProperties rabbitProperties;
+    @Value("${rabbitmqConfig.queue}")
+    private String queue;
+
+    @Value("${rabbitmqConfig.retry.delays:5s,30s,5m}")
+    private List<Duration> retryDelays;
+
+    @Value("${rabbitmqConfig.batch.size:100}")
+    private int batchSize;
+
+    @Value("${rabbitmqConfig.batch.timeout:1000}")
+    private long batchTimeout;
 
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory() {
@@ -42,69 +46,54 @@ public class RabbitConfig {
         containerFactory.setConnectionFactory(rabbitConnectionFactory);
         containerFactory.setMessageConverter(jacksonConverter());
         containerFactory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
-        containerFactory.setAdviceChain(
-                RetryInterceptorBuilder
-                        .stateless()
-                        .recoverer(new RejectAndDontRequeueRecoverer())
-                        .retryOperations(rabbitRetryTemplate())
-                        .build()
-        );
         return containerFactory;
     }
 
-    public RetryTemplate rabbitRetryTemplate() {
-        RetryTemplate retryTemplate = new RetryTemplate();
-        retryTemplate.registerListener(new RetryListener() {
-            @Override
-            public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
-                return true;
-            }
-
-            @Override
-            public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
-                log.info("Final attempt");
-                RetryListener.super.close(context, callback, throwable);
-            }
-
-            @Override
-            public <T, E extends Throwable> void onSuccess(RetryContext context, RetryCallback<T, E> callback, T result) {
-                log.info("Retry Success");
-            }
-
-            @Override
-            public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
-                log.error("RetryCount: {} with error: {}", context.getRetryCount(), throwable.getMessage());
-            }
-        });
-        retryTemplate.setBackOffPolicy(backOffPolicy());
-        retryTemplate.setRetryPolicy(retryPolicy());
-        return retryTemplate;
+    /**
+     * Consumer-side batching: the container hands the listener up to {@code rabbitmqConfig.batch.size} messages,
+     * or whatever arrived before {@code rabbitmqConfig.batch.timeout} milliseconds passed without a new one.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory() {
+        SimpleRabbitListenerContainerFactory containerFactory = new SimpleRabbitListenerContainerFactory();
+        containerFactory.setConnectionFactory(rabbitConnectionFactory);
+        containerFactory.setMessageConverter(jacksonConverter());
+        containerFactory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        containerFactory.setBatchListener(true);
+        containerFactory.setConsumerBatchEnabled(true);
+        containerFactory.setBatchSize(batchSize);
+        containerFactory.setPrefetchCount(batchSize);
+        containerFactory.setReceiveTimeout(batchTimeout);
+        return containerFactory;
     }
 
-    public ExponentialBackOffPolicy backOffPolicy() {
-        ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
-        Duration maxInterval = rabbitProperties.getListener().getSimple().getRetry().getMaxInterval();
-        Duration initialInterval = rabbitProperties.getListener().getSimple().getRetry().getInitialInterval();
-        double multiplier = rabbitProperties.getListener().getSimple().getRetry().getMultiplier();
-
-        backOffPolicy.setInitialInterval(initialInterval.toMillis() * 1000);
-        backOffPolicy.setMaxInterval(maxInterval.toMillis() * 1000);
-        backOffPolicy.setMultiplier(multiplier);
-        return backOffPolicy;
+    /**
+     * Failed messages are not retried on the listener thread. The receivers republish them to the retry queue of
+     * the next delay, or to the parking lot, and ack the original right away; see {@link RetryTopology}.
+     */
+    @Bean
+    public RetryTopology retryTopology() {
+        return new RetryTopology(queue, retryDelays);
     }
 
-    public SimpleRetryPolicy retryPolicy() {
-        SimpleRetryPolicy retryPolicy = new SimpleRetryPolicy();
-        int maxAttempts = rabbitProperties.getListener().getSimple().getRetry().getMaxAttempts();
-        retryPolicy.setMaxAttempts(maxAttempts);
-        return retryPolicy;
+    @Bean
+    public Declarables retryDeclarables(RetryTopology retryTopology) {
+        return retryTopology.declarables();
     }
 
+    /**
+     * The one converter shared by every listener. Payloads are always read into the listener's parameter type
+     * (e.g. {@code AssetMessage}) rather than the {@code __TypeId__} the publisher sent.
+     */
+    @Bean
     public MessageConverter jacksonConverter() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
         objectMapper.registerModule(new JavaTimeModule());
-        return new Jackson2JsonMessageConverter(objectMapper);
+        Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter(objectMapper);
+        converter.setAlwaysConvertToInferredType(true);
+        return converter;
     }
 }
@@ -0,0 +1,115 @@
+package com.bookkeeper.AssetSummary.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Measures how far the read replica is behind and hands the result to {@link ReplicaRouting}. Each probe reads the
+ * primary's WAL position and clock, then asks the replica whether it has replayed up to that position. If it has, it
+ * holds every commit made before the probe started and counts as current, whether or not its WAL receiver is still
+ * connected. Otherwise it is behind by the time since the later of the last probe that found it current and the
+ * commit time of the last transaction it replayed, both on the primary's clock. A replica that stopped receiving
+ * therefore starts to lag with the first write on the primary. A server that is not in recovery is not a replica
+ * and never lags. A failed probe leaves the lag unknown, which keeps reads on the primary.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "asset.replica", name = "url")
+public class ReplicaLagMonitor {
+
+    static final String PRIMARY_SQL = "SELECT clock_timestamp() AS now, pg_current_wal_lsn()::text AS lsn";
+
+    static final String REPLICA_SQL = "SELECT pg_is_in_recovery() AS recovery, " +
+            "pg_wal_lsn_diff(pg_last_wal_replay_lsn(), ?::pg_lsn) >= 0 AS caught_up, " +
+            "pg_last_xact_replay_timestamp() AS replayed";
+
+    private final JdbcTemplate primary;
+
+    private final JdbcTemplate replica;
+
+    private final ReplicaRouting replicaRouting;
+
+    private volatile long lagMillis = -1;
+
+    private Instant caughtUpAt;
+
+    public ReplicaLagMonitor(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                             @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                             ReplicaRouting replicaRouting,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replicaRouting = replicaRouting;
+        Gauge.builder("asset.replica.lag", this, monitor -> monitor.lagMillis)
+                .description("Replication lag of the read replica, -1 when unknown")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${asset.replica.lag-check-interval:PT1S}")
+    public synchronized void probe() {
+
+        Duration lag = null;
+        try {
+            lag = measure();
+        } catch (DataAccessException e) {
+            log.warn("Replica lag probe failed: {}", e.getMessage());
+        }
+
+        lagMillis = lag != null ? lag.toMillis() : -1;
+        replicaRouting.updateLag(lag);
+    }
+
+    private Duration measure() {
+
+        Position position = primary.queryForObject(PRIMARY_SQL,
+                (rs, rowNum) -> new Position(rs.getTimestamp("now").toInstant(), rs.getString("lsn")));
+
+        return replica.queryForObject(REPLICA_SQL, (rs, rowNum) -> {
+            if(!rs.getBoolean("recovery"))
+                return Duration.ZERO;
+
+            if(rs.getBoolean("caught_up")) {
+                caughtUpAt = position.now();
+                return Duration.ZERO;
+            }
+
+            Timestamp replayed = rs.getTimestamp("replayed");
+            return lag(position.now(), caughtUpAt, replayed != null ? replayed.toInstant() : null);
+        }, position.lsn());
+    }
+
+    /**
+     * @param now        primary clock at the start of the probe
+     * @param caughtUpAt start of the last probe that found the replica current, null if none did
+     * @param replayed   commit time of the last transaction the replica replayed, null if it replayed none
+     * @return how far the replica may be behind, null when neither point is known
+     */
+    static Duration lag(Instant now, Instant caughtUpAt, Instant replayed) {
+
+        Instant current = caughtUpAt;
+        if(replayed != null && (current == null || replayed.isAfter(current)))
+            current = replayed;
+
+        if(current == null)
+            return null;
+
+        Duration lag = Duration.between(current, now);
+        return lag.isNegative() ? Duration.ZERO : lag;
+    }
+
+    private record Position(Instant now, String lsn) {
+    }
+}
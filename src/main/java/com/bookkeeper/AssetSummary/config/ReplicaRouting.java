@@ -0,0 +1,121 @@
+package com.bookkeeper.AssetSummary.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Decides whether a connection may come from the read replica. Only read-only transactions go there, and only while
+ * the last lag probe is recent and within {@code asset.replica.max-lag}. A user who wrote within the last
+ * {@code asset.replica.sticky-window} reads from the primary, so they always see their own writes; the window
+ * should stay longer than the maximum lag. Reads that cannot name their user are kept on the primary with
+ * {@link #readFromPrimary()}, as that user may have just written.
+ */
+@Component
+public class ReplicaRouting {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<String> READER = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> UNKNOWN_READER = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final long maxLagMillis;
+
+    private final long lagExpiryNanos;
+
+    private final MeterRegistry meterRegistry;
+
+    private volatile long lagMillis = -1;
+
+    private volatile long lagCheckedAt;
+
+    public ReplicaRouting(@Value("${asset.replica.sticky-window:5s}") Duration stickyWindow,
+                          @Value("${asset.replica.max-lag:1s}") Duration maxLag,
+                          @Value("${asset.replica.lag-check-interval:PT1S}") Duration lagCheckInterval,
+                          MeterRegistry meterRegistry) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(stickyWindow)
+                .build();
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagExpiryNanos = lagCheckInterval.multipliedBy(3).toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Marks the reads of the current transaction as made for the given user, until the transaction completes.
+     * Call it before the first query, as the connection is chosen then.
+     */
+    public void readFor(String uid) {
+
+        if(uid == null || !TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+
+        READER.set(uid);
+        clearOnCompletion(READER);
+    }
+
+    /**
+     * Keeps the reads of the current transaction on the primary, for a reader whose uid is not known. Call it before
+     * the first query, as the connection is chosen then.
+     */
+    public void readFromPrimary() {
+
+        if(!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+
+        UNKNOWN_READER.set(Boolean.TRUE);
+        clearOnCompletion(UNKNOWN_READER);
+    }
+
+    private static void clearOnCompletion(ThreadLocal<?> threadLocal) {
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                threadLocal.remove();
+            }
+        });
+    }
+
+    public void recordWrite(String uid) {
+        recentWriters.put(uid, Boolean.TRUE);
+    }
+
+    /**
+     * Records the replica lag, or null when it could not be measured, which keeps reads on the primary.
+     */
+    public void updateLag(Duration lag) {
+        lagMillis = lag != null ? lag.toMillis() : -1;
+        lagCheckedAt = System.nanoTime();
+    }
+
+    public Route route() {
+
+        String reason;
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+            reason = "write";
+        else if(lagMillis < 0 || lagMillis > maxLagMillis || System.nanoTime() - lagCheckedAt > lagExpiryNanos)
+            reason = "lag";
+        else if(READER.get() != null && recentWriters.getIfPresent(READER.get()) != null)
+            reason = "sticky";
+        else if(UNKNOWN_READER.get() != null)
+            reason = "unknown-reader";
+        else
+            reason = "read";
+
+        Route route = reason.equals("read") ? Route.REPLICA : Route.PRIMARY;
+        meterRegistry.counter("asset.datasource.route", "target", route.name().toLowerCase(), "reason", reason).increment();
+        return route;
+    }
+}
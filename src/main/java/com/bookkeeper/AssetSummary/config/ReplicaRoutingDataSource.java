@@ -0,0 +1,29 @@
+package com.bookkeeper.AssetSummary.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Takes each connection from the primary or the replica pool as {@link ReplicaRouting} decides. It must sit behind a
+ * {@link LazyConnectionDataSourceProxy}, so the connection is fetched on the first statement, after the transaction
+ * has been marked read-only.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReplicaRouting replicaRouting;
+
+    ReplicaRoutingDataSource(ReplicaRouting replicaRouting, DataSource primary, DataSource replica) {
+        this.replicaRouting = replicaRouting;
+        setTargetDataSources(Map.of(ReplicaRouting.Route.PRIMARY, primary, ReplicaRouting.Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaRouting.route();
+    }
+}
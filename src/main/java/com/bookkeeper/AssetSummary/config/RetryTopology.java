@@ -0,0 +1,61 @@
+package com.bookkeeper.AssetSummary.config;
+
+import org.springframework.amqp.core.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Names and declarations of the delayed retry queues of the asset queue. Every delay has its own queue with that
+ * delay as message TTL; an expired message is dead-lettered through the default exchange straight back onto the
+ * asset queue. Because all messages of one retry queue share the same TTL they expire in arrival order.
+ * Messages that used up every delay go to the parking-lot queue and stay there until replayed.
+ * Retry queues are named after their delay, so changing the delays declares new queues instead of clashing
+ * with the arguments of existing ones.
+ */
+public record RetryTopology(String queue, List<Duration> delays) {
+
+    public RetryTopology {
+        delays = List.copyOf(delays);
+    }
+
+    public String exchange() {
+        return queue + ".retry";
+    }
+
+    /**
+     * @param attempt retry attempt starting at 1, at most {@link #maxRetries()}
+     */
+    public String retryQueue(int attempt) {
+        return queue + ".retry." + delays.get(attempt - 1).toMillis() + "ms";
+    }
+
+    public String parkingLot() {
+        return queue + ".parking-lot";
+    }
+
+    public int maxRetries() {
+        return delays.size();
+    }
+
+    public Declarables declarables() {
+
+        List<Declarable> declarables = new ArrayList<>();
+        DirectExchange exchange = new DirectExchange(exchange());
+        declarables.add(exchange);
+
+        for(int attempt = 1; attempt <= maxRetries(); attempt++) {
+            Queue retryQueue = QueueBuilder.durable(retryQueue(attempt))
+                    .ttl(Math.toIntExact(delays.get(attempt - 1).toMillis()))
+                    .deadLetterExchange("")
+                    .deadLetterRoutingKey(queue)
+                    .build();
+            declarables.add(retryQueue);
+            declarables.add(BindingBuilder.bind(retryQueue).to(exchange).with(retryQueue.getName()));
+        }
+
+        declarables.add(QueueBuilder.durable(parkingLot()).build());
+        return new Declarables(declarables);
+    }
+}
@@ -7,12 +7,19 @@ import com.bookkeeper.AssetSummary.service.AssetSummaryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -47,6 +54,57 @@ public class AssetSummaryController {
         return new ResponseEntity<>(response, httpHeaders, HttpStatus.OK);
     }
 
+    @PostMapping("/bulk")
+    public ResponseEntity<BaseResponse> createAssets(@RequestBody List<AssetDTO> requests,
+                                                     @RequestHeader("user-uid") String userUID,
+                                                     @RequestHeader("user-email") String userEmail) {
+
+        if(userUID.isBlank() || userEmail.isBlank())
+            throw new ForbiddenException("999", "Missing user info");
+
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        log.info("Creating {} new assets", requests.size());
+
+        assetSummaryService.createAssets(userUID, userEmail, requests);
+
+        BaseResponse response = BaseResponse.builder()
+                .status("SUCCESS")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+
+        return new ResponseEntity<>(response, httpHeaders, HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AssetImportResponse> importAssets(@RequestParam("file") MultipartFile file,
+                                                            @RequestHeader("user-uid") String userUID,
+                                                            @RequestHeader("user-email") String userEmail) throws IOException {
+
+        if(userUID.isBlank() || userEmail.isBlank())
+            throw new ForbiddenException("999", "Missing user info");
+
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        log.info("Importing assets from {}", file.getOriginalFilename());
+
+        AssetImportResult result;
+        try (InputStream csv = file.getInputStream()) {
+            result = assetSummaryService.importAssets(userUID, userEmail, csv);
+        }
+
+        AssetImportResponse response = AssetImportResponse.builder()
+                .imported(result.getImported())
+                .errors(result.getErrors())
+                .status(result.getErrors().isEmpty() ? "SUCCESS" : "PARTIAL")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+
+        return new ResponseEntity<>(response, httpHeaders, HttpStatus.OK);
+    }
+
     @DeleteMapping
     public ResponseEntity<BaseResponse> deleteAsset(@Valid @RequestBody AssetDTO request,
                                                     @RequestHeader("user-uid") String userUID,
@@ -70,11 +128,17 @@ public class AssetSummaryController {
     }
 
     @GetMapping("/single")
-    public ResponseEntity<SingleAssetResponse> getAssetByName(@RequestParam String assetName) {
+    public ResponseEntity<SingleAssetResponse> getAssetByName(@RequestParam String assetName,
+                                                              @RequestHeader(value = "user-uid", required = false) String userUID,
+                                                              WebRequest webRequest) {
+        AssetRowVersion version = assetSummaryService.getAssetVersionByName(userUID, assetName);
+        if(webRequest.checkNotModified(version.eTag(), version.lastModified()))
+            return null;
+
         final HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.setContentType(MediaType.APPLICATION_JSON);
         log.info("Getting asset: {}", assetName);
-        AssetDTO assetDTO = assetSummaryService.getAssetByName(assetName);
+        AssetDTO assetDTO = assetSummaryService.getAssetByName(userUID, assetName);
         SingleAssetResponse assetResponse = SingleAssetResponse.builder()
                 .asset(assetDTO)
                 .status("SUCCESS")
@@ -84,19 +148,103 @@ public class AssetSummaryController {
     }
 
     @GetMapping
-    public ResponseEntity<AssetResponse> getAsset(@RequestHeader("user-uid") String userUID, @RequestHeader("user-email") String userEmail) {
+    public ResponseEntity<AssetResponse> getAsset(@RequestHeader("user-uid") String userUID, @RequestHeader("user-email") String userEmail,
+                                                  WebRequest webRequest) {
 
         if(userUID.isBlank() || userEmail.isBlank())
             throw new ForbiddenException("999", "Missing user info");
 
         log.info("Getting asset for user: {}", userEmail);
-        List<AssetDTO> assetDTOList = assetSummaryService.getAsset(userUID, userEmail);
+        AssetVersion version = assetSummaryService.getAssetVersion(userUID);
+        if(webRequest.checkNotModified(version.eTag(), version.lastModified()))
+            return null;
+
+        VersionedAssets assets = assetSummaryService.getAsset(userUID, userEmail, version);
+
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+        httpHeaders.setVary(List.of("user-uid", "user-email"));
+
         AssetResponse assetResponse = AssetResponse.builder()
-                .asset(assetDTOList)
+                .asset(assets.assets())
+                .status("SUCCESS")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+        return new ResponseEntity<>(assetResponse, httpHeaders, HttpStatus.OK);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<AssetPageResponse> getAssetPage(@RequestHeader("user-uid") String userUID,
+                                                          @RequestHeader("user-email") String userEmail,
+                                                          @RequestParam(defaultValue = "NAME") AssetSort sort,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "50") int size) {
+
+        if(userUID.isBlank() || userEmail.isBlank())
+            throw new ForbiddenException("999", "Missing user info");
+
+        log.info("Getting asset page for user: {}", userEmail);
+        AssetPage page = assetSummaryService.getAssetPage(userUID, userEmail, sort, cursor, size);
+        AssetPageResponse assetPageResponse = AssetPageResponse.builder()
+                .asset(page.getAssets())
+                .nextCursor(page.getNextCursor())
+                .status("SUCCESS")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+        return new ResponseEntity<>(assetPageResponse, HttpStatus.OK);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<UserSummaryResponse> getAssetSummary(@RequestHeader("user-uid") String userUID,
+                                                               @RequestHeader("user-email") String userEmail) {
+
+        if(userUID.isBlank() || userEmail.isBlank())
+            throw new ForbiddenException("999", "Missing user info");
+
+        log.info("Getting asset summary for user: {}", userEmail);
+        UserSummaryDTO summary = assetSummaryService.getAssetSummary(userUID);
+        UserSummaryResponse userSummaryResponse = UserSummaryResponse.builder()
+                .summary(summary)
                 .status("SUCCESS")
                 .requestTime(LocalDateTime.now().withNano(0))
                 .build();
-        return new ResponseEntity<>(assetResponse, HttpStatus.OK);
+        return new ResponseEntity<>(userSummaryResponse, HttpStatus.OK);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<AssetHistoryResponse> getAssetHistory(@RequestHeader("user-uid") String userUID,
+                                                                @RequestHeader("user-email") String userEmail,
+                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(defaultValue = "DAY") HistoryBucket bucket) {
+
+        if(userUID.isBlank() || userEmail.isBlank())
+            throw new ForbiddenException("999", "Missing user info");
+
+        log.info("Getting asset history for user: {}", userEmail);
+        List<AssetSeriesDTO> series = assetSummaryService.getAssetHistory(userUID, userEmail, from, to, bucket);
+        AssetHistoryResponse assetHistoryResponse = AssetHistoryResponse.builder()
+                .series(series)
+                .status("SUCCESS")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+        return new ResponseEntity<>(assetHistoryResponse, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAsset(@RequestHeader("user-uid") String userUID,
+                                                             @RequestHeader("user-email") String userEmail) {
+
+        if(userUID.isBlank() || userEmail.isBlank())
+            throw new ForbiddenException("999", "Missing user info");
+
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_NDJSON);
+
+        log.info("Exporting asset for user: {}", userEmail);
+
+        StreamingResponseBody body = out -> assetSummaryService.exportAssets(userUID, out);
+        return new ResponseEntity<>(body, httpHeaders, HttpStatus.OK);
     }
 
     @PutMapping
@@ -121,4 +269,29 @@ public class AssetSummaryController {
 
         return new ResponseEntity<>(response, httpHeaders, HttpStatus.OK);
     }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkPaymentResponse> updateAssets(@RequestHeader("user-uid") String userUID,
+                                                            @RequestHeader("user-email") String userEmail,
+                                                            @RequestBody List<PaymentDTO> requests) {
+
+        if(userUID.isBlank() || userEmail.isBlank())
+            throw new ForbiddenException("999", "Missing user info");
+
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        log.info("Updating assets with {} payments", requests.size());
+
+        List<PaymentResult> results = assetSummaryService.updateAssets(userUID, requests);
+        boolean allApplied = results.stream().allMatch(result -> "SUCCESS".equals(result.getStatus()));
+
+        BulkPaymentResponse response = BulkPaymentResponse.builder()
+                .results(results)
+                .status(allApplied ? "SUCCESS" : "PARTIAL")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+
+        return new ResponseEntity<>(response, httpHeaders, HttpStatus.OK);
+    }
 }
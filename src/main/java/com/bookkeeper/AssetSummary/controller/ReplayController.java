@@ -0,0 +1,76 @@
+package com.bookkeeper.AssetSummary.controller;
+
+import com.bookkeeper.AssetSummary.client.ParkingLotReplayer;
+import com.bookkeeper.AssetSummary.model.dto.ReplayStatus;
+import com.bookkeeper.AssetSummary.model.exception.ForbiddenException;
+import com.bookkeeper.AssetSummary.model.response.ReplayResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Admin endpoints for replaying the parking-lot queue. Only the users listed in {@code asset.replay.admin-uids}
+ * may call them.
+ */
+@Slf4j
+@RestController
+@RequestMapping(value = "/api/v1/admin/replay")
+@RequiredArgsConstructor
+public class ReplayController {
+
+    private final ParkingLotReplayer parkingLotReplayer;
+
+    @Value("${asset.replay.admin-uids:}")
+    private Set<String> adminUids;
+
+    @PostMapping
+    public ResponseEntity<ReplayResponse> startReplay(@RequestHeader("user-uid") String userUID,
+                                                      @RequestParam(required = false) Integer batchSize,
+                                                      @RequestParam(required = false) Double rate,
+                                                      @RequestParam(required = false) Long limit) {
+
+        checkAdmin(userUID);
+
+        log.info("User {} starting parking-lot replay", userUID);
+        return buildResponse(parkingLotReplayer.start(batchSize, rate, limit), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping
+    public ResponseEntity<ReplayResponse> getReplay(@RequestHeader("user-uid") String userUID) {
+
+        checkAdmin(userUID);
+
+        return buildResponse(parkingLotReplayer.status(), HttpStatus.OK);
+    }
+
+    @DeleteMapping
+    public ResponseEntity<ReplayResponse> stopReplay(@RequestHeader("user-uid") String userUID) {
+
+        checkAdmin(userUID);
+
+        log.info("User {} stopping parking-lot replay", userUID);
+        return buildResponse(parkingLotReplayer.stop(), HttpStatus.OK);
+    }
+
+    private void checkAdmin(String userUID) {
+
+        if(userUID.isBlank() || !adminUids.contains(userUID))
+            throw new ForbiddenException("999", "Missing admin permission");
+    }
+
+    private ResponseEntity<ReplayResponse> buildResponse(ReplayStatus replay, HttpStatus httpStatus) {
+
+        ReplayResponse replayResponse = ReplayResponse.builder()
+                .replay(replay)
+                .status("SUCCESS")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+        return new ResponseEntity<>(replayResponse, httpStatus);
+    }
+}
@@ -0,0 +1,53 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position in the paginated asset listing: the sort it belongs to plus the sort value
+ * and name of the last asset on the previous page.
+ */
+public record AssetCursor(AssetSort sort, String value, String name) {
+
+    private static final String SEPARATOR = "\n";
+
+    public static AssetCursor after(AssetSort sort, AssetDTO asset) {
+
+        String value = switch (sort) {
+            case NAME -> asset.getName();
+            case TYPE -> asset.getType();
+            case BALANCE, BALANCE_DESC -> String.valueOf(Money.toMinor(asset.getBalance(), asset.getCurrency()));
+        };
+        return new AssetCursor(sort, value, asset.getName());
+    }
+
+    public static AssetCursor decode(String cursor, AssetSort sort) {
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+            if(parts.length != 3 || AssetSort.valueOf(parts[0]) != sort)
+                throw new GlobalException("0215", "Invalid cursor");
+
+            if(sort == AssetSort.BALANCE || sort == AssetSort.BALANCE_DESC)
+                Long.parseLong(parts[1]);
+
+            return new AssetCursor(sort, parts[1], parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new GlobalException("0215", "Invalid cursor");
+        }
+    }
+
+    /**
+     * @return the stored balance, in minor units of its own currency, of the last asset on the previous page
+     */
+    public long balance() {
+        return Long.parseLong(value);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sort.name() + SEPARATOR + value + SEPARATOR + name).getBytes(StandardCharsets.UTF_8));
+    }
+}
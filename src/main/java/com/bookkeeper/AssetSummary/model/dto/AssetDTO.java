@@ -2,6 +2,7 @@ package com.bookkeeper.AssetSummary.model.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -22,4 +23,21 @@ public class AssetDTO {
 
     @NotNull
     private String color;
+
+    /**
+     * ISO 4217 code the balance is held in; {@link Money#DEFAULT_CURRENCY} when absent.
+     */
+    @Pattern(regexp = "[A-Z]{3}")
+    private String currency;
+
+    public AssetDTO(String name, String type, Double balance, String color) {
+        this(name, type, balance, color, null);
+    }
+
+    /**
+     * Builds the DTO from a balance stored in minor units; used by the JPQL projections.
+     */
+    public AssetDTO(String name, String type, long balance, String color, String currency) {
+        this(name, type, Money.toMajor(balance, currency), color, currency);
+    }
 }
@@ -0,0 +1,16 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import com.bookkeeper.AssetSummary.model.response.ImportRowError;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AssetImportResult {
+
+    private long imported;
+
+    private List<ImportRowError> errors;
+}
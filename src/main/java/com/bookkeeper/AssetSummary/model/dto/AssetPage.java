@@ -0,0 +1,15 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class AssetPage {
+
+    private List<AssetDTO> assets;
+
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version of one asset row, used as the ETag of the single asset read. The row id is part of the tag, so a tag
+ * issued for one asset never matches another asset that is later returned under the same name.
+ * Last-Modified is the owner's {@link AssetVersion} date, which moves with every write to the row.
+ */
+public record AssetRowVersion(long id, long version, LocalDateTime updatedDate) {
+
+    public static final AssetRowVersion NONE = new AssetRowVersion(0, 0, null);
+
+    public String eTag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    public long lastModified() {
+        return updatedDate != null ? updatedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
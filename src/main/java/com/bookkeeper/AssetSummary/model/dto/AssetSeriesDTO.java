@@ -0,0 +1,19 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssetSeriesDTO {
+
+    private String name;
+
+    private List<BalancePointDTO> points;
+
+    private String currency;
+}
@@ -0,0 +1,14 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+/**
+ * Orders supported by the paginated asset listing. Each one is backed by a (uid, column, name) index,
+ * with the asset name breaking ties so every position in the listing is unique.
+ * The balance orders compare the stored minor units without looking at the currency, so they rank assets by value
+ * only within one currency: 100 JPY sorts level with 1.00 HKD and below 1.01 HKD.
+ */
+public enum AssetSort {
+    NAME,
+    TYPE,
+    BALANCE,
+    BALANCE_DESC
+}
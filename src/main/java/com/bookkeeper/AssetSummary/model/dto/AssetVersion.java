@@ -0,0 +1,21 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version of a user's asset list, bumped by every write that changes it. Used as the ETag and Last-Modified
+ * of the read endpoints so unchanged lists can be answered with 304 without reading any asset rows.
+ */
+public record AssetVersion(long version, LocalDateTime updatedDate) {
+
+    public static final AssetVersion INITIAL = new AssetVersion(0, null);
+
+    public String eTag() {
+        return "\"" + version + "\"";
+    }
+
+    public long lastModified() {
+        return updatedDate != null ? updatedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
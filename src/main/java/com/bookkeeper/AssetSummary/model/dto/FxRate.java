@@ -0,0 +1,7 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+/**
+ * Exchange rate as units of {@code quoteCurrency} per unit of {@code baseCurrency}.
+ */
+public record FxRate(String baseCurrency, String quoteCurrency, double rate) {
+}
@@ -0,0 +1,10 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+/**
+ * Resolution of the balance history. Each bucket reports the last daily balance recorded inside it.
+ */
+public enum HistoryBucket {
+    DAY,
+    WEEK,
+    MONTH
+}
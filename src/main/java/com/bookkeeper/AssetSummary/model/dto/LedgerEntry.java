@@ -0,0 +1,16 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import java.util.UUID;
+
+/**
+ * One signed balance change of an asset, identified by owner and asset name and keyed by the payment that caused it.
+ * Deltas are in minor units. Opening entries carry the balance an asset was created with.
+ */
+public record LedgerEntry(String uid, String assetName, UUID paymentUuid, String action, long delta) {
+
+    public static final String OPEN = "OPEN";
+
+    public static LedgerEntry opening(String uid, String assetName, long balance) {
+        return new LedgerEntry(uid, assetName, null, OPEN, balance);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+
+import java.util.Currency;
+
+/**
+ * Balances and deltas are held as a whole number of the currency's minor unit, so they add up exactly.
+ * Decimal amounts only exist on the JSON wire and are converted here, using the ISO 4217 fraction digits
+ * of the currency as the scale.
+ */
+public final class Money {
+
+    /**
+     * Currency every stored balance is kept in.
+     */
+    public static final String DEFAULT_CURRENCY = "HKD";
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+
+    private static final double MAX_EXACT = 0x1p53;
+
+    private Money() {
+    }
+
+    /**
+     * @return number of fraction digits of the currency, zero for currencies without a minor unit
+     */
+    public static int scale(String currency) {
+
+        try {
+            int digits = Currency.getInstance(currency != null ? currency : DEFAULT_CURRENCY).getDefaultFractionDigits();
+            return Math.max(digits, 0);
+        } catch (IllegalArgumentException e) {
+            throw new GlobalException("0210", "Invalid request");
+        }
+    }
+
+    /**
+     * Rounds a decimal amount to the nearest minor unit. Amounts too large to be represented exactly are rejected.
+     */
+    public static long toMinor(double amount, String currency) {
+
+        double scaled = amount * POWERS_OF_TEN[scale(currency)];
+        if(!(Math.abs(scaled) < MAX_EXACT))
+            throw new GlobalException("0210", "Invalid request");
+
+        return Math.round(scaled);
+    }
+
+    /**
+     * @return the decimal amount closest to {@code minor} minor units
+     */
+    public static double toMajor(long minor, String currency) {
+
+        return (double) minor / POWERS_OF_TEN[scale(currency)];
+    }
+}
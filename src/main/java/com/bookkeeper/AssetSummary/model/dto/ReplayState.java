@@ -0,0 +1,11 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+/**
+ * Lifecycle of a parking-lot replay. Only one replay is {@code RUNNING} at a time.
+ */
+public enum ReplayState {
+    RUNNING,
+    COMPLETED,
+    STOPPED,
+    FAILED
+}
@@ -0,0 +1,43 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a parking-lot replay. {@code total} is the parking-lot depth when the replay started, capped by
+ * its limit; {@code throughput} is messages per second since the start.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayStatus {
+
+    private String id;
+
+    private ReplayState state;
+
+    private int batchSize;
+
+    private double rate;
+
+    private long total;
+
+    private long processed;
+
+    private long succeeded;
+
+    private long failed;
+
+    private double throughput;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private String error;
+}
@@ -0,0 +1,7 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+/**
+ * Change one asset makes to its owner's summary: a balance delta in minor units of the asset's currency plus +1/-1 when the asset is created or deleted.
+ */
+public record SummaryChange(String assetName, long delta, int count) {
+}
@@ -0,0 +1,17 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SummaryTotalDTO {
+
+    private String key;
+
+    private double total;
+
+    private int count;
+}
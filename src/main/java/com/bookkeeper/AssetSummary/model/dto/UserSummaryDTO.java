@@ -0,0 +1,19 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserSummaryDTO {
+
+    private double netWorth;
+
+    private List<SummaryTotalDTO> types;
+
+    private List<SummaryTotalDTO> colors;
+}
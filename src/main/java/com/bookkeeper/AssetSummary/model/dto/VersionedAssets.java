@@ -0,0 +1,10 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import java.util.List;
+
+/**
+ * A user's asset list together with the {@link AssetVersion} it was read at. Cached and served as one unit, so the
+ * ETag always describes the body it is sent with.
+ */
+public record VersionedAssets(AssetVersion version, List<AssetDTO> assets) {
+}
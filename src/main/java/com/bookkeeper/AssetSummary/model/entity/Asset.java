@@ -1,8 +1,12 @@
 package com.bookkeeper.AssetSummary.model.entity;
 
+import com.bookkeeper.AssetSummary.model.dto.Money;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -16,7 +20,11 @@ public class Asset {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "asset_generator")
-    @SequenceGenerator(name = "asset_generator", sequenceName = "asset_seq", allocationSize = 1)
+    @GenericGenerator(name = "asset_generator", type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "asset_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Long id;
 
     private String UID;
@@ -27,10 +35,15 @@ public class Asset {
 
     private String type;
 
-    private Double balance;
+    private long balance;
 
     private String color;
 
+    private String currency;
+
+    @Version
+    private long version;
+
     private LocalDateTime created_Date;
 
     private LocalDateTime updated_Date;
@@ -51,6 +64,8 @@ public class Asset {
     @PrePersist
     protected void onCreate() {
         created_Date = LocalDateTime.now();
+        if(currency == null)
+            currency = Money.DEFAULT_CURRENCY;
     }
 
     @PreUpdate
@@ -1,10 +1,14 @@
 package com.bookkeeper.AssetSummary.model.mapper;
 
 import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import com.bookkeeper.AssetSummary.model.dto.Money;
 import com.bookkeeper.AssetSummary.model.entity.Asset;
-import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Component;
 
+/**
+ * Copies the fields shared by {@link Asset} and {@link AssetDTO} with plain accessors.
+ * A field added to both classes has to be added here as well. Balances are converted between decimal and minor units of the asset currency.
+ */
 @Component
 public class AssetMapper extends BaseMapper<Asset, AssetDTO> {
 
@@ -12,8 +16,13 @@ public class AssetMapper extends BaseMapper<Asset, AssetDTO> {
     public Asset convertToEntity(AssetDTO dto) {
         Asset asset = new Asset();
 
-        if(dto != null)
-            BeanUtils.copyProperties(dto, asset);
+        if(dto != null) {
+            asset.setName(dto.getName());
+            asset.setType(dto.getType());
+            asset.setCurrency(dto.getCurrency() != null ? dto.getCurrency() : Money.DEFAULT_CURRENCY);
+            asset.setBalance(dto.getBalance() != null ? Money.toMinor(dto.getBalance(), asset.getCurrency()) : 0);
+            asset.setColor(dto.getColor());
+        }
 
         return asset;
     }
@@ -22,8 +31,13 @@ public class AssetMapper extends BaseMapper<Asset, AssetDTO> {
     public AssetDTO convertToDto(Asset entity) {
         AssetDTO AssetDTO = new AssetDTO();
 
-        if(entity != null)
-            BeanUtils.copyProperties(entity, AssetDTO);
+        if(entity != null) {
+            AssetDTO.setName(entity.getName());
+            AssetDTO.setType(entity.getType());
+            AssetDTO.setBalance(Money.toMajor(entity.getBalance(), entity.getCurrency()));
+            AssetDTO.setColor(entity.getColor());
+            AssetDTO.setCurrency(entity.getCurrency());
+        }
 
         return AssetDTO;
     }
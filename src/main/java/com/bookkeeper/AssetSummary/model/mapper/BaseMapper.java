@@ -3,7 +3,6 @@ package com.bookkeeper.AssetSummary.model.mapper;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public abstract class BaseMapper<E, D> {
 
@@ -12,18 +11,24 @@ public abstract class BaseMapper<E, D> {
     public abstract D convertToDto(E entity);
 
     public Collection<E> convertToEntity(Collection<D> dto) {
-        return dto.stream().map(this::convertToEntity).collect(Collectors.toList());
+        return convertToEntityList(dto);
     }
 
     public Collection<D> convertToDto(Collection<E> entity) {
-        return entity.stream().map(this::convertToDto).collect(Collectors.toList());
+        return convertToDtoList(entity);
     }
 
     public List<E> convertToEntityList(Collection<D> dto) {
-        return new ArrayList<>(convertToEntity(dto));
+        List<E> entities = new ArrayList<>(dto.size());
+        for(D item : dto)
+            entities.add(convertToEntity(item));
+        return entities;
     }
 
     public List<D> convertToDtoList(Collection<E> entity) {
-        return new ArrayList<>(convertToDto(entity));
+        List<D> dtos = new ArrayList<>(entity.size());
+        for(E item : entity)
+            dtos.add(convertToDto(item));
+        return dtos;
     }
 }
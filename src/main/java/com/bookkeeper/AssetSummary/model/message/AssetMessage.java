@@ -0,0 +1,86 @@
+package com.bookkeeper.AssetSummary.model.message;
+
+import com.bookkeeper.AssetSummary.model.dto.PaymentDTO;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Balance change published by the payment service. Exactly one of the shapes below is populated:
+ * <ul>
+ *     <li>payment: {@code request_record}</li>
+ *     <li>reverse: {@code request_record} and the {@code reverse_record} it replaces</li>
+ *     <li>cancel: {@code cancel}</li>
+ * </ul>
+ * Messages published before {@code version} was introduced carry no version and are read as version 1.
+ * Publishers set {@code message_id}, a uuid unique to each message and kept on redelivery. An edit must carry one: a
+ * payment can be edited back and forth any number of times, and only the message id keeps those edits apart when
+ * duplicates are dropped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AssetMessage {
+
+    public static final int CURRENT_VERSION = 1;
+
+    @Builder.Default
+    private int version = CURRENT_VERSION;
+
+    @JsonProperty("message_id")
+    private UUID messageId;
+
+    private String uid;
+
+    private String email;
+
+    @JsonProperty("request_record")
+    private PaymentDTO requestRecord;
+
+    @JsonProperty("reverse_record")
+    private PaymentDTO reverseRecord;
+
+    private PaymentDTO cancel;
+
+    @JsonIgnore
+    public MessageAction getAction() {
+
+        if(cancel != null)
+            return MessageAction.CANCEL;
+
+        return reverseRecord != null ? MessageAction.REVERSE : MessageAction.PAYMENT;
+    }
+
+    /**
+     * The record of the payment this message changes, whose uuid is written to the balance ledger.
+     */
+    @JsonIgnore
+    public PaymentDTO getPaymentRecord() {
+        return cancel != null ? cancel : requestRecord;
+    }
+
+    /**
+     * Identifies this message in the processed message ledger, together with its action. A payment is created and
+     * cancelled once, so without {@code message_id} its uuid is enough for those. An edit is identified by its
+     * {@code message_id} alone and has no key without one.
+     */
+    @JsonIgnore
+    public UUID getMessageKey() {
+
+        if(messageId != null)
+            return messageId;
+
+        PaymentDTO record = getPaymentRecord();
+        if(record == null || getAction() == MessageAction.REVERSE)
+            return null;
+        return record.getUuid();
+    }
+}
@@ -0,0 +1,7 @@
+package com.bookkeeper.AssetSummary.model.message;
+
+public enum MessageAction {
+    PAYMENT,
+    REVERSE,
+    CANCEL
+}
@@ -0,0 +1,16 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetSeriesDTO;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@Data
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class AssetHistoryResponse extends BaseResponse{
+
+    List<AssetSeriesDTO> series;
+}
@@ -0,0 +1,17 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@Data
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class AssetImportResponse extends BaseResponse{
+
+    long imported;
+
+    List<ImportRowError> errors;
+}
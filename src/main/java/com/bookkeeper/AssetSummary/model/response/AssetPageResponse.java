@@ -0,0 +1,18 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@Data
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class AssetPageResponse extends BaseResponse{
+
+    List<AssetDTO> asset;
+
+    String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+@Data
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class BulkPaymentResponse extends BaseResponse{
+
+    List<PaymentResult> results;
+}
@@ -0,0 +1,19 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportRowError {
+
+    private long line;
+
+    private String code;
+
+    private String message;
+}
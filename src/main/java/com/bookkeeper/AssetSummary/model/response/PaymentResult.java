@@ -0,0 +1,46 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import com.bookkeeper.AssetSummary.model.dto.PaymentDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentResult {
+
+    private int index;
+
+    private UUID uuid;
+
+    private String status;
+
+    private String code;
+
+    private String message;
+
+    public static PaymentResult success(int index, PaymentDTO request) {
+        return PaymentResult.builder()
+                .index(index)
+                .uuid(request.getUuid())
+                .status("SUCCESS")
+                .build();
+    }
+
+    public static PaymentResult failed(int index, PaymentDTO request, String code, String message) {
+        return PaymentResult.builder()
+                .index(index)
+                .uuid(request != null ? request.getUuid() : null)
+                .status("FAILED")
+                .code(code)
+                .message(message)
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import com.bookkeeper.AssetSummary.model.dto.ReplayStatus;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.SuperBuilder;
+
+@Data
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class ReplayResponse extends BaseResponse{
+
+    ReplayStatus replay;
+}
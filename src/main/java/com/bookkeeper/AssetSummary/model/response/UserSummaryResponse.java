@@ -0,0 +1,14 @@
+package com.bookkeeper.AssetSummary.model.response;
+
+import com.bookkeeper.AssetSummary.model.dto.UserSummaryDTO;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.SuperBuilder;
+
+@Data
+@SuperBuilder
+@EqualsAndHashCode(callSuper = true)
+public class UserSummaryResponse extends BaseResponse{
+
+    UserSummaryDTO summary;
+}
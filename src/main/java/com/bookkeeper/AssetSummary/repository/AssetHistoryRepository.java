@@ -0,0 +1,100 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.HistoryBucket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily balance series per asset, stored in the date-partitioned asset_daily_balance table. The row of the day is
+ * upserted after each balance change, so it always holds the day's closing balance.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssetHistoryRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Copies the current balance of the named assets into today's row, in one JDBC batch.
+     */
+    public void recordDaily(String uid, Collection<String> names) {
+
+        if(names.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO asset_daily_balance (asset_id, day, balance) " +
+                        "SELECT id, current_date, balance FROM asset WHERE uid = ? AND name = ? " +
+                        "ON CONFLICT (asset_id, day) DO UPDATE SET balance = EXCLUDED.balance",
+                names.stream().map(name -> new Object[]{uid, name}).toList());
+    }
+
+    /**
+     * Last balance of every bucket between {@code from} and {@code to}, ordered by asset name and bucket.
+     * The day range prunes partitions and the (asset_id, day) index carries the balance for index-only scans.
+     */
+    public List<Point> findSeries(String uid, String email, LocalDate from, LocalDate to, HistoryBucket bucket) {
+
+        return jdbcTemplate.query(
+                "SELECT DISTINCT ON (a.name, bucket) a.name, date_trunc(?, d.day::timestamp)::date AS bucket, d.balance, a.currency " +
+                        "FROM asset a JOIN asset_daily_balance d ON d.asset_id = a.id " +
+                        "WHERE a.uid = ? AND a.email = ? AND d.day >= ? AND d.day <= ? " +
+                        "ORDER BY a.name, bucket, d.day DESC",
+                (rs, rowNum) -> new Point(rs.getString("name"), rs.getObject("bucket", LocalDate.class), rs.getLong("balance"), rs.getString("currency")),
+                bucket.name().toLowerCase(), uid, email, from, to);
+    }
+
+    /**
+     * Balance each asset closed with on its last recorded day before {@code day}, used to open a series.
+     */
+    public Map<String, Point> findBalancesBefore(String uid, String email, LocalDate day) {
+
+        Map<String, Point> balances = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT a.name, a.currency, p.day, p.balance FROM asset a CROSS JOIN LATERAL (" +
+                        "SELECT d.day, d.balance FROM asset_daily_balance d WHERE d.asset_id = a.id AND d.day < ? " +
+                        "ORDER BY d.day DESC LIMIT 1) p " +
+                        "WHERE a.uid = ? AND a.email = ?",
+                rs -> {
+                    balances.put(rs.getString("name"), new Point(rs.getString("name"), rs.getObject("day", LocalDate.class),
+                            rs.getLong("balance"), rs.getString("currency")));
+                }, day, uid, email);
+        return balances;
+    }
+
+    /**
+     * Creates the yearly partition of {@code year} unless it exists. Rows of that year already sitting in the DEFAULT
+     * partition are moved into the new table before it is attached, since PostgreSQL refuses to attach a range the
+     * DEFAULT partition holds rows for. Has to run in a transaction, so the move and the attach commit together;
+     * an advisory lock keeps instances running it at the same time from racing.
+     *
+     * @return true when the partition was created
+     */
+    public boolean createYearPartition(int year) {
+
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(hashtext('asset_daily_balance_partitions'))");
+        String partition = "asset_daily_balance_" + year;
+        if(Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)))
+            return false;
+
+        LocalDate from = LocalDate.of(year, 1, 1);
+        LocalDate to = from.plusYears(1);
+        jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE asset_daily_balance INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM asset_daily_balance_default WHERE day >= ? AND day < ? " +
+                "RETURNING asset_id, day, balance) " +
+                "INSERT INTO " + partition + " (asset_id, day, balance) SELECT asset_id, day, balance FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE asset_daily_balance ATTACH PARTITION " + partition +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return true;
+    }
+
+    public record Point(String name, LocalDate bucket, long balance, String currency) {
+    }
+}
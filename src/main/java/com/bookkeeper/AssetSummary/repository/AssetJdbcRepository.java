@@ -0,0 +1,107 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+
+/**
+ * Set-based asset writes that go through JDBC batching instead of one JPA statement per row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssetJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${asset.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    @Value("${asset.locking.timeout:2s}")
+    private Duration lockTimeout;
+
+    /**
+     * Adds each delta to the balance of the asset with that id in one JDBC batch.
+     * Rows are updated in id order so concurrent batches always lock them in the same order, and their version is bumped.
+     */
+    public void addToBalances(SortedMap<Long, Long> deltas) {
+
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> {
+            if(delta != 0)
+                args.add(new Object[]{delta, id});
+        });
+
+        if(!args.isEmpty())
+            jdbcTemplate.batchUpdate("UPDATE asset SET balance = balance + ?, version = version + 1, updated_date = now() WHERE id = ?", args);
+    }
+
+    /**
+     * @return currency of each of the user's named assets; names the user has no asset for are left out
+     */
+    public Map<String, String> findCurrencies(String uid, Collection<String> names) {
+
+        Map<String, String> currencies = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT name, currency FROM asset WHERE uid = ? AND name = ANY (?)");
+            statement.setString(1, uid);
+            statement.setArray(2, connection.createArrayOf("text", names.toArray()));
+            return statement;
+        }, rs -> {
+            currencies.put(rs.getString("name"), rs.getString("currency"));
+        });
+        return currencies;
+    }
+
+    /**
+     * Locks the user's named assets with {@code SELECT ... FOR UPDATE} and returns their currencies like
+     * {@link #findCurrencies}. All rows are taken by one statement in id order, so two transactions locking an
+     * overlapping set of assets queue up behind each other instead of deadlocking. The wait for each lock is
+     * bounded by {@code asset.locking.timeout} for the rest of the transaction; running out of it raises a
+     * {@link org.springframework.dao.PessimisticLockingFailureException}.
+     */
+    public Map<String, String> lockCurrencies(String uid, Collection<String> names) {
+
+        jdbcTemplate.queryForObject("SELECT set_config('lock_timeout', ?, true)", String.class, String.valueOf(lockTimeout.toMillis()));
+
+        Map<String, String> currencies = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, name, currency FROM asset WHERE uid = ? AND name = ANY (?) ORDER BY id FOR UPDATE");
+            statement.setString(1, uid);
+            statement.setArray(2, connection.createArrayOf("text", names.toArray()));
+            return statement;
+        }, rs -> {
+            currencies.put(rs.getString("name"), rs.getString("currency"));
+        });
+        return currencies;
+    }
+
+    /**
+     * Streams a user's assets through a forward-only cursor that fetches {@code asset.export.fetch-size} rows at a time.
+     * PostgreSQL only honours the fetch size inside a transaction, and the stream must be closed by the caller.
+     */
+    public Stream<AssetDTO> streamDtoByUID(String uid) {
+
+        return jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT name, type, balance, color, currency FROM asset WHERE uid = ? ORDER BY name",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(exportFetchSize);
+            statement.setString(1, uid);
+            return statement;
+        }, (rs, rowNum) -> new AssetDTO(rs.getString("name"), rs.getString("type"), rs.getLong("balance"), rs.getString("color"), rs.getString("currency")));
+    }
+}
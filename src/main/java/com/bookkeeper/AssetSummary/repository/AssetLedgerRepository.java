@@ -0,0 +1,82 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ledger of balance changes plus periodic per-asset snapshots. Entries are only ever inserted; a balance can be
+ * rebuilt at any time as the latest snapshot plus the ledger entries written after it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssetLedgerRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the entries with a single statement, in the order given. The asset id is resolved through the
+     * (uid, name) index, so entries for assets that do not exist are dropped just like their balance update.
+     */
+    public void append(List<LedgerEntry> entries) {
+
+        List<LedgerEntry> changes = entries.stream().filter(entry -> entry.delta() != 0).toList();
+        if(changes.isEmpty())
+            return;
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO asset_ledger (asset_id, payment_uuid, action, delta) " +
+                            "SELECT a.id, e.payment_uuid, e.action, e.delta " +
+                            "FROM unnest(?::uuid[], ?::text[], ?::int8[], ?::text[], ?::text[]) WITH ORDINALITY " +
+                            "AS e(payment_uuid, action, delta, uid, name, position) " +
+                            "JOIN asset a ON a.uid = e.uid AND a.name = e.name " +
+                            "ORDER BY e.position");
+            statement.setArray(1, connection.createArrayOf("uuid", changes.stream().map(LedgerEntry::paymentUuid).toArray()));
+            statement.setArray(2, connection.createArrayOf("text", changes.stream().map(LedgerEntry::action).toArray()));
+            statement.setArray(3, connection.createArrayOf("int8", changes.stream().map(LedgerEntry::delta).toArray()));
+            statement.setArray(4, connection.createArrayOf("text", changes.stream().map(LedgerEntry::uid).toArray()));
+            statement.setArray(5, connection.createArrayOf("text", changes.stream().map(LedgerEntry::assetName).toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * Writes a new snapshot for every asset with ledger entries since its last one. Entries younger than {@code lag}
+     * are left for the next run, so a transaction that has not committed yet cannot slip in below the new snapshot.
+     *
+     * @return number of snapshots written
+     */
+    public int snapshot(Duration lag) {
+
+        return jdbcTemplate.update(
+                "WITH hwm AS (SELECT max(id) AS id FROM asset_ledger WHERE created_date < clock_timestamp() - make_interval(secs => ?)), " +
+                        "last AS (SELECT DISTINCT ON (asset_id) asset_id, ledger_id, balance FROM asset_balance_snapshot " +
+                        "ORDER BY asset_id, ledger_id DESC) " +
+                        "INSERT INTO asset_balance_snapshot (asset_id, ledger_id, balance) " +
+                        "SELECT l.asset_id, hwm.id, COALESCE(s.balance, 0) + SUM(l.delta) " +
+                        "FROM asset_ledger l CROSS JOIN hwm LEFT JOIN last s ON s.asset_id = l.asset_id " +
+                        "WHERE l.id > COALESCE(s.ledger_id, 0) AND l.id <= hwm.id " +
+                        "GROUP BY l.asset_id, hwm.id, s.balance",
+                (double) lag.toSeconds());
+    }
+
+    /**
+     * Rebuilds an asset's balance from its latest snapshot and the ledger tail after it.
+     */
+    public Optional<Long> rebuildBalance(long assetId) {
+
+        return jdbcTemplate.query(
+                "SELECT COALESCE((SELECT balance FROM asset_balance_snapshot s WHERE s.asset_id = a.id ORDER BY ledger_id DESC LIMIT 1), 0) + " +
+                        "COALESCE((SELECT SUM(delta) FROM asset_ledger l WHERE l.asset_id = a.id AND l.id > " +
+                        "COALESCE((SELECT max(ledger_id) FROM asset_balance_snapshot s WHERE s.asset_id = a.id), 0)), 0) AS balance " +
+                        "FROM asset a WHERE a.id = ?",
+                (rs, rowNum) -> rs.getLong("balance"), assetId).stream().findFirst();
+    }
+}
@@ -1,8 +1,15 @@
 package com.bookkeeper.AssetSummary.repository;
 
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
 import com.bookkeeper.AssetSummary.model.entity.Asset;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,9 +17,56 @@ public interface AssetRepository extends JpaRepository<Asset, Long> {
 
 //    Optional<Asset> findTopByNameOrderByDate(String assetName);
 
-    Optional<Asset> findByName(String name);
-
     Optional<Asset> findByNameAndUID(String name, String uid);
 
-    Optional<List<Asset>> findByEmailAndUID(String email, String uid);
+    List<Asset> findByUIDAndNameIn(String uid, Collection<String> names);
+
+    /**
+     * Read path projections: rows are read straight into {@link AssetDTO} without creating managed entities.
+     */
+    @Query("SELECT new com.bookkeeper.AssetSummary.model.dto.AssetDTO(a.name, a.type, a.balance, a.color, a.currency) " +
+            "FROM Asset a WHERE a.name = :name ORDER BY a.id LIMIT 1")
+    Optional<AssetDTO> findDtoByName(@Param("name") String name);
+
+    @Query("SELECT new com.bookkeeper.AssetSummary.model.dto.AssetDTO(a.name, a.type, a.balance, a.color, a.currency) " +
+            "FROM Asset a WHERE a.email = :email AND a.UID = :uid")
+    List<AssetDTO> findDtoByEmailAndUID(@Param("email") String email, @Param("uid") String uid);
+
+    /**
+     * Keyset pages of a user's assets. Each query continues strictly after the (sort value, name) of the previous
+     * page and walks a (uid, column, name) index, so no page needs an offset or a count query.
+     */
+    @Query("SELECT new com.bookkeeper.AssetSummary.model.dto.AssetDTO(a.name, a.type, a.balance, a.color, a.currency) " +
+            "FROM Asset a WHERE a.UID = :uid AND a.email = :email AND a.name > :name ORDER BY a.name")
+    Slice<AssetDTO> findDtoPageOrderByName(@Param("uid") String uid, @Param("email") String email,
+                                           @Param("name") String name, Pageable pageable);
+
+    @Query("SELECT new com.bookkeeper.AssetSummary.model.dto.AssetDTO(a.name, a.type, a.balance, a.color, a.currency) " +
+            "FROM Asset a WHERE a.UID = :uid AND a.email = :email AND (a.type, a.name) > (:type, :name) " +
+            "ORDER BY a.type, a.name")
+    Slice<AssetDTO> findDtoPageOrderByType(@Param("uid") String uid, @Param("email") String email,
+                                           @Param("type") String type, @Param("name") String name, Pageable pageable);
+
+    @Query("SELECT new com.bookkeeper.AssetSummary.model.dto.AssetDTO(a.name, a.type, a.balance, a.color, a.currency) " +
+            "FROM Asset a WHERE a.UID = :uid AND a.email = :email AND (a.balance, a.name) > (:balance, :name) " +
+            "ORDER BY a.balance, a.name")
+    Slice<AssetDTO> findDtoPageOrderByBalance(@Param("uid") String uid, @Param("email") String email,
+                                              @Param("balance") long balance, @Param("name") String name, Pageable pageable);
+
+    @Query("SELECT new com.bookkeeper.AssetSummary.model.dto.AssetDTO(a.name, a.type, a.balance, a.color, a.currency) " +
+            "FROM Asset a WHERE a.UID = :uid AND a.email = :email AND (a.balance, a.name) < (:balance, :name) " +
+            "ORDER BY a.balance DESC, a.name DESC")
+    Slice<AssetDTO> findDtoPageOrderByBalanceDesc(@Param("uid") String uid, @Param("email") String email,
+                                                  @Param("balance") long balance, @Param("name") String name, Pageable pageable);
+
+    /**
+     * Applies a balance delta in the database so concurrent transfers on the same asset cannot overwrite each other.
+     * The version is bumped as well, so an optimistic writer holding the old row notices the change.
+     *
+     * @return number of rows updated, 0 when the asset does not exist
+     */
+    @Modifying
+    @Query("UPDATE Asset a SET a.balance = a.balance + :delta, a.version = a.version + 1, a.updated_Date = CURRENT_TIMESTAMP " +
+            "WHERE a.UID = :uid AND a.name = :name")
+    int updateBalance(@Param("uid") String uid, @Param("name") String name, @Param("delta") long delta);
 }
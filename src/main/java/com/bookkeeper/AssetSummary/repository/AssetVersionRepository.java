@@ -0,0 +1,52 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetRowVersion;
+import com.bookkeeper.AssetSummary.model.dto.AssetVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Optional;
+
+/**
+ * Per-user version counter of the asset list. The counter is bumped inside each write transaction,
+ * so it moves exactly when the change commits and never goes backwards the way timestamps can.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssetVersionRepository {
+
+    private static final RowMapper<AssetVersion> ROW_MAPPER = (rs, rowNum) ->
+            new AssetVersion(rs.getLong("version"), rs.getTimestamp("updated_date").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void bump(String uid) {
+        jdbcTemplate.update(
+                "INSERT INTO asset_user_version (uid, version, updated_date) VALUES (?, 1, now()) " +
+                        "ON CONFLICT (uid) DO UPDATE SET version = asset_user_version.version + 1, updated_date = now()",
+                uid);
+    }
+
+    public Optional<AssetVersion> findByUid(String uid) {
+        return jdbcTemplate.query(
+                "SELECT version, updated_date FROM asset_user_version WHERE uid = ?",
+                ROW_MAPPER, uid).stream().findFirst();
+    }
+
+    /**
+     * Version of the asset row the single asset read returns for the given name: the one with the lowest id, as in
+     * {@link AssetRepository#findDtoByName}. Read through the asset name index.
+     */
+    public Optional<AssetRowVersion> findByAssetName(String name) {
+        return jdbcTemplate.query(
+                "SELECT a.id, a.version, v.updated_date FROM asset a LEFT JOIN asset_user_version v ON v.uid = a.uid " +
+                        "WHERE a.name = ? ORDER BY a.id LIMIT 1",
+                (rs, rowNum) -> {
+                    Timestamp updatedDate = rs.getTimestamp("updated_date");
+                    return new AssetRowVersion(rs.getLong("id"), rs.getLong("version"), updatedDate != null ? updatedDate.toLocalDateTime() : null);
+                }, name).stream().findFirst();
+    }
+}
@@ -0,0 +1,21 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.FxRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class FxRateRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<FxRate> findAll() {
+
+        return jdbcTemplate.query("SELECT base_currency, quote_currency, rate FROM fx_rate",
+                (rs, rowNum) -> new FxRate(rs.getString("base_currency"), rs.getString("quote_currency"), rs.getDouble("rate")));
+    }
+}
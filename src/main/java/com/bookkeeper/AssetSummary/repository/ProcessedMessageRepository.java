@@ -0,0 +1,29 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.message.MessageAction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Ledger of MQ messages that changed a balance, keyed by message key and action; the key is the message id, or the
+ * payment uuid for messages without one, see {@link com.bookkeeper.AssetSummary.model.message.AssetMessage#getMessageKey}.
+ * Rows are written inside the balance transaction, so a message is recorded exactly when its change commits.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessedMessageRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return false when the message was already recorded, in which case nothing is written
+     */
+    public boolean markProcessed(UUID uuid, MessageAction action) {
+        return jdbcTemplate.update(
+                "INSERT INTO processed_message (uuid, action) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                uuid, action.name()) == 1;
+    }
+}
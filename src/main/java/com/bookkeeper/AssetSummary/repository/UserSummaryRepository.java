@@ -0,0 +1,76 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.SummaryChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Per-user totals by asset type and by color, kept up to date by every write instead of being aggregated on read.
+ * Each type or color has one row per currency of its assets, holding minor units of that currency, so removing an
+ * asset subtracts exactly what it added; converting into one currency is left to the reader.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserSummaryRepository {
+
+    public static final String TYPE = "TYPE";
+
+    public static final String COLOR = "COLOR";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Folds the changes into the user's summary rows with a single statement. The asset type, color and currency are looked up
+     * through the (uid, name) index, changes are grouped per summary row, and rows are upserted in key order so
+     * concurrent writers of the same user always lock them in the same order.
+     */
+    public void apply(String uid, List<SummaryChange> changes) {
+
+        if(changes.isEmpty())
+            return;
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "WITH c AS (SELECT COALESCE(a.type, '') AS type, COALESCE(a.color, '') AS color, a.currency, d.delta, d.count FROM asset a " +
+                            "JOIN unnest(?::text[], ?::int8[], ?::int[]) AS d(name, delta, count) ON d.name = a.name " +
+                            "WHERE a.uid = ?) " +
+                            "INSERT INTO asset_user_summary (uid, dimension, key, currency, total, asset_count) " +
+                            "SELECT ?, s.dimension, s.key, s.currency, s.total, s.asset_count FROM (" +
+                            "SELECT 'TYPE' AS dimension, type AS key, currency, SUM(delta) AS total, SUM(count) AS asset_count FROM c GROUP BY type, currency " +
+                            "UNION ALL " +
+                            "SELECT 'COLOR', color, currency, SUM(delta), SUM(count) FROM c GROUP BY color, currency) s " +
+                            "ORDER BY s.dimension, s.key, s.currency " +
+                            "ON CONFLICT (uid, dimension, key, currency) DO UPDATE SET " +
+                            "total = asset_user_summary.total + EXCLUDED.total, " +
+                            "asset_count = asset_user_summary.asset_count + EXCLUDED.asset_count");
+            statement.setArray(1, connection.createArrayOf("text", changes.stream().map(SummaryChange::assetName).toArray()));
+            statement.setArray(2, connection.createArrayOf("int8", changes.stream().map(SummaryChange::delta).toArray()));
+            statement.setArray(3, connection.createArrayOf("int4", changes.stream().map(SummaryChange::count).toArray()));
+            statement.setString(4, uid);
+            statement.setString(5, uid);
+            return statement;
+        });
+    }
+
+    /**
+     * @return the user's totals for one dimension, one row per type or color and currency
+     */
+    public List<Total> findByDimension(String uid, String dimension) {
+
+        return jdbcTemplate.query(
+                "SELECT key, currency, total, asset_count FROM asset_user_summary " +
+                        "WHERE uid = ? AND dimension = ? AND asset_count > 0 ORDER BY key, currency",
+                (rs, rowNum) -> new Total(rs.getString("key"), rs.getString("currency"), rs.getLong("total"), rs.getInt("asset_count")),
+                uid, dimension);
+    }
+
+    /**
+     * @param total minor units of {@code currency}
+     */
+    public record Total(String key, String currency, long total, int count) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetVersion;
+import com.bookkeeper.AssetSummary.model.dto.VersionedAssets;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of each user's asset list, bounded by size and time to live. Each entry keeps the version the
+ * list was read at, so the ETag served with a cached list is the one it was loaded with.
+ * Callers pass the user's current version on every read and an entry older than it is reloaded. Writes made by
+ * other instances never reach {@link #invalidate} here, the version row is what brings them in; the list is as
+ * fresh as the version read, which on a lagging replica can trail the primary until the lag check routes away.
+ * Loads run inside Caffeine's per-key compute, so an {@link #invalidate} issued while a load is in flight
+ * waits for it and then drops the possibly stale result instead of racing with it.
+ */
+@Component
+public class AssetCache {
+
+    private final Cache<String, CachedAssets> cache;
+
+    private final Timer loadTimer;
+
+    public AssetCache(@Value("${asset.cache.maximum-size:10000}") long maximumSize,
+                      @Value("${asset.cache.expire-after-write:5m}") Duration expireAfterWrite,
+                      MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.loadTimer = Timer.builder("asset.cache.load")
+                .description("Time to load a user's assets on a cache miss")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "asset");
+    }
+
+    public VersionedAssets get(String uid, String email, AssetVersion current, Supplier<VersionedAssets> loader) {
+
+        CachedAssets cached = cache.get(uid, key -> new CachedAssets(email, load(loader)));
+        if(cached.isOlderThan(current))
+            cached = cache.asMap().compute(uid, (key, entry) ->
+                    entry == null || entry.isOlderThan(current) ? new CachedAssets(email, load(loader)) : entry);
+        if(!cached.email().equals(email))
+            return load(loader);
+
+        return cached.assets();
+    }
+
+    public void invalidate(String uid) {
+        cache.invalidate(uid);
+    }
+
+    private VersionedAssets load(Supplier<VersionedAssets> loader) {
+
+        VersionedAssets loaded = loadTimer.record(loader);
+        return new VersionedAssets(loaded.version(), List.copyOf(loaded.assets()));
+    }
+
+    private record CachedAssets(String email, VersionedAssets assets) {
+
+        boolean isOlderThan(AssetVersion current) {
+            return assets.version().version() < current.version();
+        }
+    }
+}
@@ -1,20 +1,49 @@
 package com.bookkeeper.AssetSummary.service;
 
+import com.bookkeeper.AssetSummary.config.ReplicaRouting;
 import com.bookkeeper.AssetSummary.model.dto.*;
 import com.bookkeeper.AssetSummary.model.entity.Asset;
 import com.bookkeeper.AssetSummary.model.exception.*;
 import com.bookkeeper.AssetSummary.model.mapper.AssetMapper;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.model.message.MessageAction;
+import com.bookkeeper.AssetSummary.model.response.ImportRowError;
+import com.bookkeeper.AssetSummary.model.response.PaymentResult;
+import com.bookkeeper.AssetSummary.repository.AssetHistoryRepository;
+import com.bookkeeper.AssetSummary.repository.AssetJdbcRepository;
+import com.bookkeeper.AssetSummary.repository.AssetLedgerRepository;
 import com.bookkeeper.AssetSummary.repository.AssetRepository;
+import com.bookkeeper.AssetSummary.repository.AssetVersionRepository;
+import com.bookkeeper.AssetSummary.repository.ProcessedMessageRepository;
+import com.bookkeeper.AssetSummary.repository.UserSummaryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Optional;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -26,25 +55,128 @@ public class AssetSummaryService {
     @Autowired
     private AssetMapper assetMapper;
 
-    public void updateAssetWithMessageQueue(HashMap<String, Object> message) {
+    @Autowired
+    private ProcessedMessageRepository processedMessageRepository;
+
+    @Autowired
+    private AssetCache assetCache;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private AssetJdbcRepository assetJdbcRepository;
+
+    @Autowired
+    private AssetVersionRepository assetVersionRepository;
+
+    @Autowired
+    private AssetLedgerRepository assetLedgerRepository;
 
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    @Autowired
+    private AssetHistoryRepository assetHistoryRepository;
 
-        String UID = (String) message.get("uid");
+    @Autowired
+    private UserSummaryRepository userSummaryRepository;
 
-        PaymentDTO request = mapper.convertValue(message.get("request_record"), PaymentDTO.class);
+    @Autowired
+    private FxRateTable fxRateTable;
 
-        if(message.get("reverse_record") != null) {
-            PaymentDTO reverse_record = (PaymentDTO) message.get("reverse_record");
-            reverseAsset(reverse_record, request, UID);
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Value("${asset.bulk.max-size:5000}")
+    private int bulkMaxSize;
+
+    @Value("${asset.import.chunk-size:1000}")
+    private int importChunkSize;
+
+    @Value("${asset.page.max-size:200}")
+    private int pageMaxSize;
+
+    @Value("${asset.history.max-days:1830}")
+    private int historyMaxDays;
+
+    @Value("${asset.locking.mode:PESSIMISTIC}")
+    private LockingMode lockingMode;
+
+    /**
+     * Balance mutations run in their own transaction through {@link OptimisticRetry}, which re-runs the whole
+     * transaction when it lost an optimistic version check.
+     */
+    public void processMessage(AssetMessage message) {
+
+        if(message.getAction() == MessageAction.CANCEL) {
+            cancelTransaction(message);
             return;
         }
 
-        updateAsset(UID, request, true);
+        updateAssetWithMessageQueue(message);
     }
 
+    /**
+     * Applies a batch of MQ messages in one transaction. The currencies of all touched assets are read once, each
+     * message is converted, and balance deltas are then netted per (uid, asset name) so every touched asset is written
+     * once; an invalid message or a missing asset fails the whole batch.
+     */
+    public void processMessageBatch(List<AssetMessage> messages) {
+
+        mutate("processMessageBatch", () -> applyMessageBatch(messages));
+    }
+
+    public void updateAssetWithMessageQueue(AssetMessage message) {
+
+        mutate("updateAssetWithMessageQueue", () -> applyMessage(message));
+    }
+
+    private void applyMessageBatch(List<AssetMessage> messages) {
+
+        List<AssetMessage> claimed = new ArrayList<>(messages.size());
+        List<List<BalanceLeg>> claimedLegs = new ArrayList<>(messages.size());
+        for(AssetMessage message : messages) {
+            if(!claimMessage(message))
+                continue;
+
+            claimed.add(message);
+            claimedLegs.add(message.getAction() == MessageAction.CANCEL ? cancelLegs(message) : messageQueueLegs(message));
+        }
+
+        Map<AssetKey, String> currencies = assetCurrencies(claimedLegs.stream().flatMap(List::stream).toList());
+        Map<AssetKey, BalanceLeg> netted = new LinkedHashMap<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+        for(int i = 0; i < claimed.size(); i++) {
+            List<BalanceLeg> legs = convertLegs(claimedLegs.get(i), currencies);
+            legs.forEach(leg -> netted.merge(leg.key(), leg, BalanceLeg::plus));
+            entries.addAll(ledgerEntries(legs, claimed.get(i)));
+        }
+
+        applyLegs(netted.values(), entries);
+        log.info("Applied {} messages as {} balance updates", messages.size(), netted.size());
+    }
+
+    private void applyMessage(AssetMessage message) {
+
+        if(!claimMessage(message))
+            return;
+
+        List<BalanceLeg> legs = convertLegs(messageQueueLegs(message));
+        applyLegs(legs, ledgerEntries(legs, message));
+    }
+
+    /**
+     * Creates one asset together with its OPEN ledger entry, history and summary rows in a single transaction. The
+     * insert is flushed straight away, so a duplicate that slipped past the lookup surfaces here as 0200.
+     */
+    @Transactional
     public void createAsset(String uid, String email, AssetDTO request) {
 
         assetRepository.findByNameAndUID(request.getName(), uid).ifPresent(s -> {
@@ -55,81 +187,559 @@ public class AssetSummaryService {
         asset.setUID(uid);
         asset.setEmail(email);
 
-        assetMapper.convertToDto(assetRepository.save(asset));
+        try {
+            assetMapper.convertToDto(assetRepository.saveAndFlush(asset));
+        } catch (DataIntegrityViolationException e) {
+            throw new AssetAlreadyExisting("0200","Asset Already exist");
+        }
+        recordCreated(uid, List.of(asset));
+        touchUser(uid);
     }
 
-    public AssetDTO getAssetByName(String assetName) {
+    /**
+     * Creates several assets for one user in a single transaction. Duplicates, both within the request and
+     * against existing assets, are checked with one query before anything is written; the inserts are then
+     * sent as JDBC batches using ids from the pooled asset sequence.
+     */
+    @Transactional
+    public void createAssets(String uid, String email, List<AssetDTO> requests) {
+
+        if(requests.size() > bulkMaxSize)
+            throw new GlobalException("0213", "Too many assets in one request");
+
+        Set<String> names = new HashSet<>();
+        for(AssetDTO request : requests) {
+            if(request == null || !validator.validate(request).isEmpty())
+                throw new GlobalException("0210", "Invalid request");
+
+            if(!names.add(request.getName()))
+                throw new AssetAlreadyExisting("0200","Asset Already exist");
+        }
 
-        Asset asset = assetRepository.findByName(assetName).
+        if(!assetRepository.findByUIDAndNameIn(uid, names).isEmpty())
+            throw new AssetAlreadyExisting("0200","Asset Already exist");
+
+        List<Asset> assets = assetMapper.convertToEntityList(requests);
+        assets.forEach(asset -> {
+            asset.setUID(uid);
+            asset.setEmail(email);
+        });
+
+        try {
+            assetRepository.saveAll(assets);
+            assetRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new AssetAlreadyExisting("0200","Asset Already exist");
+        }
+        log.info("Created {} assets", assets.size());
+        recordCreated(uid, assets);
+        touchUser(uid);
+    }
+
+    /**
+     * Imports assets from a CSV stream with a {@code name,type,balance,color} header. Rows are parsed one at a time and
+     * written in chunks of {@code asset.import.chunk-size}, each chunk in its own transaction with a single duplicate
+     * check, so memory stays flat regardless of file size. Rows that fail validation or already exist are reported
+     * by line number and skipped.
+     */
+    public AssetImportResult importAssets(String uid, String email, InputStream csv) throws IOException {
+
+        if(uid == null || uid.isEmpty())
+            throw new ForbiddenException("999", "Missing user info");
+
+        List<ImportRowError> errors = new ArrayList<>();
+        Map<String, ImportRow> chunk = new LinkedHashMap<>();
+        long imported = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if(header == null || !List.of("name", "type", "balance", "color").equals(parseCsvLine(header.strip().toLowerCase())))
+                throw new GlobalException("0214", "Invalid import file header");
+
+            String line;
+            long lineNumber = 1;
+            while((line = reader.readLine()) != null) {
+                lineNumber++;
+                if(line.isBlank())
+                    continue;
+
+                AssetDTO row = parseAssetRow(line);
+                if(row == null) {
+                    errors.add(new ImportRowError(lineNumber, "0210", "Invalid request"));
+                    continue;
+                }
+                if(chunk.containsKey(row.getName())) {
+                    errors.add(new ImportRowError(lineNumber, "0200", "Asset Already exist"));
+                    continue;
+                }
+                chunk.put(row.getName(), new ImportRow(lineNumber, row));
+
+                if(chunk.size() >= importChunkSize) {
+                    imported += importChunk(uid, email, chunk, errors);
+                    chunk.clear();
+                }
+            }
+        }
+        imported += importChunk(uid, email, chunk, errors);
+
+        errors.sort(Comparator.comparingLong(ImportRowError::getLine));
+        log.info("Imported {} assets, {} rows rejected", imported, errors.size());
+        return new AssetImportResult(imported, errors);
+    }
+
+    /**
+     * @param userUID the reader, who reads from the primary while their own writes may not have reached the replica;
+     *                without one the read always goes to the primary
+     */
+    @Transactional(readOnly = true)
+    public AssetRowVersion getAssetVersionByName(String userUID, String assetName) {
+
+        readByName(userUID);
+        return assetVersionRepository.findByAssetName(assetName).orElse(AssetRowVersion.NONE);
+    }
+
+    @Transactional(readOnly = true)
+    public AssetDTO getAssetByName(String userUID, String assetName) {
+
+        readByName(userUID);
+        return assetRepository.findDtoByName(assetName).
                 orElseThrow(() -> new AssetNotFound("0202", "Asset Not Found in given record"));
+    }
+
+    private void readByName(String userUID) {
 
-        return assetMapper.convertToDto(asset);
+        if(userUID == null || userUID.isEmpty())
+            replicaRouting.readFromPrimary();
+        else
+            replicaRouting.readFor(userUID);
     }
 
-    public List<AssetDTO> getAsset(String userUID, String userEmail) {
+    /**
+     * Version of the user's asset list, which is the ETag of the list. It is read on its own, so a request that is
+     * answered with 304 never loads or caches any asset rows.
+     */
+    @Transactional(readOnly = true)
+    public AssetVersion getAssetVersion(String userUID) {
 
-        List<Asset> assetList = assetRepository.findByEmailAndUID(userEmail, userUID).orElseThrow(
-                () -> new AssetNotFound("0201", "No Assets found"));
+        replicaRouting.readFor(userUID);
+        return assetVersionRepository.findByUid(userUID).orElse(AssetVersion.INITIAL);
+    }
 
-        return assetMapper.convertToDtoList(assetList);
+    /**
+     * The user's assets at {@code version}, read through {@link #getAssetVersion} beforehand, or at a later version.
+     * Reading the version first means a write committing in between can only leave the version older than the list,
+     * which costs a 200 later on and never a 304 for a stale list. The same version decides whether the cached list
+     * is still current, so a write committed through another instance is seen as soon as its version bump is.
+     */
+    @Transactional(readOnly = true)
+    public VersionedAssets getAsset(String userUID, String userEmail, AssetVersion version) {
+
+        replicaRouting.readFor(userUID);
+        return assetCache.get(userUID, userEmail, version, () -> {
+            List<AssetDTO> assetList = assetRepository.findDtoByEmailAndUID(userEmail, userUID);
+            if(assetList.isEmpty())
+                throw new AssetNotFound("0201", "No Assets found");
+
+            return new VersionedAssets(version, assetList);
+        });
     }
 
-    private void reverseAsset(PaymentDTO reverseRecord, PaymentDTO request, String UID) {
+    /**
+     * Returns one keyset page of the user's assets in the requested order. The page size is capped at
+     * {@code asset.page.max-size}; the returned cursor is null on the last page.
+     */
+    @Transactional(readOnly = true)
+    public AssetPage getAssetPage(String userUID, String userEmail, AssetSort sort, String cursor, int size) {
 
-        if(reverseRecord.getPaymentFrom() == null || reverseRecord.getPaymentTo() == null)
+        if(userUID == null || userUID.isEmpty())
+            throw new ForbiddenException("999", "Missing user info");
+
+        replicaRouting.readFor(userUID);
+
+        if(size < 1)
             throw new GlobalException("0210", "Invalid request");
 
-        if(!reverseRecord.getPaymentFrom().equals(request.getPaymentTo()))
-            throw new GlobalException("0211", "Invalid reverse request");
+        Pageable pageable = Pageable.ofSize(Math.min(size, pageMaxSize));
+        AssetCursor after = cursor != null && !cursor.isEmpty() ? AssetCursor.decode(cursor, sort) : null;
+
+        Slice<AssetDTO> slice = switch (sort) {
+            case NAME -> assetRepository.findDtoPageOrderByName(userUID, userEmail,
+                    after != null ? after.name() : "", pageable);
+            case TYPE -> assetRepository.findDtoPageOrderByType(userUID, userEmail,
+                    after != null ? after.value() : "", after != null ? after.name() : "", pageable);
+            case BALANCE -> assetRepository.findDtoPageOrderByBalance(userUID, userEmail,
+                    after != null ? after.balance() : Long.MIN_VALUE, after != null ? after.name() : "", pageable);
+            case BALANCE_DESC -> assetRepository.findDtoPageOrderByBalanceDesc(userUID, userEmail,
+                    after != null ? after.balance() : Long.MAX_VALUE, after != null ? after.name() : "", pageable);
+        };
+
+        List<AssetDTO> assets = slice.getContent();
+        String nextCursor = slice.hasNext() ? AssetCursor.after(sort, assets.get(assets.size() - 1)).encode() : null;
+        return new AssetPage(assets, nextCursor);
+    }
 
-        Optional<Asset> assetFrom = assetRepository.findByNameAndUID(request.getPaymentFrom(), UID);
-        assetFrom.ifPresentOrElse(asset -> {
-            asset.setBalance(asset.getBalance() + reverseRecord.getAmount() - request.getAmount());
-            assetRepository.save(asset);
-            log.info("Reverse asset: {}", asset.getName());
-        }, () -> {
-            throw new AssetNotFound("0202", "Asset Not Found in given record");
+    /**
+     * Returns the balance series of the user's assets between {@code from} and {@code to}, downsampled to one point
+     * per bucket. A series whose first bucket starts after {@code from} is opened with the balance carried over
+     * from the last recorded day before the range.
+     */
+    @Transactional(readOnly = true)
+    public List<AssetSeriesDTO> getAssetHistory(String userUID, String userEmail, LocalDate from, LocalDate to, HistoryBucket bucket) {
+
+        if(userUID == null || userUID.isEmpty())
+            throw new ForbiddenException("999", "Missing user info");
+
+        replicaRouting.readFor(userUID);
+
+        if(from.isAfter(to) || ChronoUnit.DAYS.between(from, to) > historyMaxDays)
+            throw new GlobalException("0216", "Invalid history range");
+
+        Map<String, AssetHistoryRepository.Point> opening = assetHistoryRepository.findBalancesBefore(userUID, userEmail, from);
+        Map<String, AssetSeriesDTO> series = new TreeMap<>();
+        for(AssetHistoryRepository.Point point : assetHistoryRepository.findSeries(userUID, userEmail, from, to, bucket)) {
+            List<BalancePointDTO> points = series.computeIfAbsent(point.name(),
+                    name -> new AssetSeriesDTO(name, new ArrayList<>(), point.currency())).getPoints();
+            if(points.isEmpty() && point.bucket().isAfter(from) && opening.containsKey(point.name()))
+                points.add(new BalancePointDTO(from, Money.toMajor(opening.get(point.name()).balance(), point.currency())));
+            points.add(new BalancePointDTO(point.bucket(), Money.toMajor(point.balance(), point.currency())));
+        }
+        opening.forEach((name, point) -> series.computeIfAbsent(name, key ->
+                new AssetSeriesDTO(name, List.of(new BalancePointDTO(from, Money.toMajor(point.balance(), point.currency()))), point.currency())));
+
+        return new ArrayList<>(series.values());
+    }
+
+    /**
+     * Writes every asset of the user to {@code out} as newline-delimited JSON while the rows are read from the cursor,
+     * so memory use does not grow with the number of assets.
+     */
+    @Transactional(readOnly = true)
+    public void exportAssets(String userUID, OutputStream out) throws IOException {
+
+        if(userUID == null || userUID.isEmpty())
+            throw new ForbiddenException("999", "Missing user info");
+
+        replicaRouting.readFor(userUID);
+
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<AssetDTO> assets = assetJdbcRepository.streamDtoByUID(userUID);
+             JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            Iterator<AssetDTO> iterator = assets.iterator();
+            while(iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    public void cancelTransaction(AssetMessage message) {
+
+        mutate("cancelTransaction", () -> {
+            if(!claimMessage(message))
+                return;
+
+            List<BalanceLeg> legs = convertLegs(cancelLegs(message));
+            applyLegs(legs, ledgerEntries(legs, message));
         });
+    }
 
-        Optional<Asset> assetTo = assetRepository.findByNameAndUID(request.getPaymentTo(), UID);
-        assetTo.ifPresentOrElse(asset -> {
-            asset.setBalance(asset.getBalance() - reverseRecord.getAmount() + request.getAmount());
-            assetRepository.save(asset);
-            log.info("Reverse asset: {}", asset.getName());
-        }, () -> {
-            throw new AssetNotFound("0202", "Asset Not Found in given record");
+    public void updateAsset(String userUID, PaymentDTO request, boolean fromMQ) {
+
+        mutate("updateAsset", () -> {
+            List<BalanceLeg> legs = convertLegs(paymentLegs(userUID, request, !fromMQ));
+            applyLegs(legs, ledgerEntries(legs, request.getUuid(), MessageAction.PAYMENT));
         });
     }
 
-    public void cancelTransaction(HashMap<String, Object> message) {
+    /**
+     * Applies many payments for one user in a single transaction. Every payment is validated first and the
+     * assets they touch are loaded with one query; amounts are converted into each asset's currency, netted per asset
+     * and written as one JDBC batch.
+     * Invalid payments and payments on unknown assets are reported as failed and left out of the batch.
+     */
+    public List<PaymentResult> updateAssets(String userUID, List<PaymentDTO> requests) {
+
+        if(userUID == null || userUID.isEmpty())
+            throw new ForbiddenException("999", "Missing user info");
+
+        if(requests.size() > bulkMaxSize)
+            throw new GlobalException("0213", "Too many payments in one request");
+
+        return optimisticRetry.call("updateAssets", () -> transactionTemplate.execute(status -> applyPayments(userUID, requests)));
+    }
+
+    private List<PaymentResult> applyPayments(String userUID, List<PaymentDTO> requests) {
+
+        PaymentResult[] results = new PaymentResult[requests.size()];
+        Set<String> names = new HashSet<>();
+        for(int i = 0; i < requests.size(); i++) {
+            PaymentDTO request = requests.get(i);
+            if(request == null || !validator.validate(request).isEmpty()) {
+                results[i] = PaymentResult.failed(i, request, "0210", "Invalid request");
+                continue;
+            }
+            names.add(request.getPaymentFrom());
+            names.add(request.getPaymentTo());
+        }
+
+        Map<String, Asset> assets = new HashMap<>();
+        if(!names.isEmpty()) {
+            if(lockingMode == LockingMode.PESSIMISTIC)
+                lockAssets(userUID, names);
+            assetRepository.findByUIDAndNameIn(userUID, names).forEach(asset -> assets.put(asset.getName(), asset));
+        }
+
+        SortedMap<Long, Long> deltas = new TreeMap<>();
+        Map<String, BalanceLeg> touched = new HashMap<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+        for(int i = 0; i < requests.size(); i++) {
+            if(results[i] != null)
+                continue;
+
+            PaymentDTO request = requests.get(i);
+            Asset from = assets.get(request.getPaymentFrom());
+            Asset to = assets.get(request.getPaymentTo());
+            if(from == null || to == null) {
+                results[i] = PaymentResult.failed(i, request, "0202", "Asset Not Found in given record");
+                continue;
+            }
+
+            long fromDelta;
+            long toDelta;
+            try {
+                long value = paymentValue(request);
+                fromDelta = -fxRateTable.convert(value, request.getCurrency(), from.getCurrency());
+                toDelta = fxRateTable.convert(value, request.getCurrency(), to.getCurrency());
+            } catch (GlobalException e) {
+                results[i] = PaymentResult.failed(i, request, e.getCode(), e.getMessage());
+                continue;
+            }
+            deltas.merge(from.getId(), fromDelta, Long::sum);
+            deltas.merge(to.getId(), toDelta, Long::sum);
+            touched.merge(from.getName(), new BalanceLeg(new AssetKey(userUID, from.getName()), fromDelta, from.getCurrency(), true), BalanceLeg::plus);
+            touched.merge(to.getName(), new BalanceLeg(new AssetKey(userUID, to.getName()), toDelta, to.getCurrency(), true), BalanceLeg::plus);
+            entries.add(new LedgerEntry(userUID, from.getName(), request.getUuid(), MessageAction.PAYMENT.name(), fromDelta));
+            entries.add(new LedgerEntry(userUID, to.getName(), request.getUuid(), MessageAction.PAYMENT.name(), toDelta));
+            results[i] = PaymentResult.success(i, request);
+        }
+
+        if(lockingMode == LockingMode.OPTIMISTIC)
+            addToVersionedBalances(assets.values(), deltas);
+        else
+            assetJdbcRepository.addToBalances(deltas);
+        assetLedgerRepository.append(entries);
+        log.info("Applied {} payments as {} balance updates", requests.size(), deltas.size());
+
+        if(!deltas.isEmpty()) {
+            recordBalanceChanges(userUID, touched);
+            touchUser(userUID);
+        }
 
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return Arrays.asList(results);
+    }
 
-        PaymentDTO request = (PaymentDTO) message.get("cancel");
-        String UID = (String) message.get("uid");
+    @Transactional
+    public void deleteAsset(String uid, AssetDTO request) {
 
-        Optional<Asset> assetFrom = assetRepository.findByNameAndUID(request.getPaymentFrom(), UID);
-        assetFrom.ifPresentOrElse(asset -> {
-            asset.setBalance(asset.getBalance() + request.getAmount());
-            assetRepository.save(asset);
-            log.info("Cancel transaction for asset: {}", asset.getName());
+        assetRepository.findByNameAndUID(request.getName(), uid).ifPresentOrElse(asset -> {
+            userSummaryRepository.apply(uid, List.of(new SummaryChange(asset.getName(), -asset.getBalance(), -1)));
+            assetRepository.delete(asset);
         }, () -> {
-            throw new AssetNotFound("0202", "Asset Not Found in given record");
+            throw new AssetNotFound("0202","Asset Not Found in given record");
         });
+        touchUser(uid);
+    }
 
-        Optional<Asset> assetTo = assetRepository.findByNameAndUID(request.getPaymentTo(), UID);
-        assetTo.ifPresentOrElse(asset -> {
-            asset.setBalance(asset.getBalance() - request.getAmount());
-            assetRepository.save(asset);
-            log.info("Cancel transaction for asset: {}", asset.getName());
-        }, () -> {
-            throw new AssetNotFound("0202", "Asset Not Found in given record");
+    /**
+     * Net worth and totals by type and color, read from the incrementally maintained summary rows. Those are kept per
+     * currency and converted into the default currency here at the current rate, so a read costs one conversion per
+     * type or color and currency, whatever the number of assets.
+     */
+    @Transactional(readOnly = true)
+    public UserSummaryDTO getAssetSummary(String userUID) {
+
+        if(userUID == null || userUID.isEmpty())
+            throw new ForbiddenException("999", "Missing user info");
+
+        replicaRouting.readFor(userUID);
+
+        List<SummaryTotalDTO> types = summaryTotals(userUID, UserSummaryRepository.TYPE);
+        List<SummaryTotalDTO> colors = summaryTotals(userUID, UserSummaryRepository.COLOR);
+        long netWorth = 0;
+        for(SummaryTotalDTO type : types)
+            netWorth += Money.toMinor(type.getTotal(), Money.DEFAULT_CURRENCY);
+
+        return new UserSummaryDTO(Money.toMajor(netWorth, Money.DEFAULT_CURRENCY), types, colors);
+    }
+
+    /**
+     * Merges the per-currency rows of one dimension into one total per type or color in the default currency.
+     */
+    private List<SummaryTotalDTO> summaryTotals(String userUID, String dimension) {
+
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        for(UserSummaryRepository.Total row : userSummaryRepository.findByDimension(userUID, dimension)) {
+            long[] total = totals.computeIfAbsent(row.key(), key -> new long[2]);
+            total[0] += fxRateTable.convert(row.total(), row.currency(), Money.DEFAULT_CURRENCY);
+            total[1] += row.count();
+        }
+
+        List<SummaryTotalDTO> result = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> result.add(new SummaryTotalDTO(key, Money.toMajor(total[0], Money.DEFAULT_CURRENCY), (int) total[1])));
+        return result;
+    }
+
+    /**
+     * Records the message in the processed message ledger as part of the current transaction.
+     * Returns false for a message that was already applied, which the caller then skips.
+     * Payments and cancellations without a key, see {@link AssetMessage#getMessageKey}, cannot be deduplicated and are
+     * always applied. An edit without one is rejected, since applying it blindly could book it twice.
+     */
+    private boolean claimMessage(AssetMessage message) {
+
+        if(message.getVersion() > AssetMessage.CURRENT_VERSION)
+            throw new GlobalException("0212", "Unsupported message version");
+
+        MessageAction action = message.getAction();
+        UUID uuid = message.getMessageKey();
+        if(uuid == null) {
+            if(action == MessageAction.REVERSE)
+                throw new GlobalException("0222", "Missing message id");
+            return true;
+        }
+
+        if(!processedMessageRepository.markProcessed(uuid, action)) {
+            log.info("Skipping duplicate {} message {}", action, uuid);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes one chunk of parsed rows in its own transaction, skipping names the user already has.
+     * A concurrent insert that trips the unique index rejects the whole chunk.
+     */
+    private int importChunk(String uid, String email, Map<String, ImportRow> chunk, List<ImportRowError> errors) {
+
+        if(chunk.isEmpty())
+            return 0;
+
+        Set<String> existing = new HashSet<>();
+        try {
+            Integer saved = transactionTemplate.execute(status -> {
+                assetRepository.findByUIDAndNameIn(uid, chunk.keySet()).forEach(asset -> existing.add(asset.getName()));
+
+                List<Asset> assets = new ArrayList<>(chunk.size());
+                chunk.forEach((name, row) -> {
+                    if(existing.contains(name))
+                        return;
+
+                    Asset asset = assetMapper.convertToEntity(row.asset());
+                    asset.setUID(uid);
+                    asset.setEmail(email);
+                    assets.add(asset);
+                });
+                assetRepository.saveAll(assets);
+                assetRepository.flush();
+                if(!assets.isEmpty()) {
+                    recordCreated(uid, assets);
+                    touchUser(uid);
+                }
+                return assets.size();
+            });
+            existing.forEach(name -> errors.add(new ImportRowError(chunk.get(name).line(), "0200", "Asset Already exist")));
+            return saved != null ? saved : 0;
+        } catch (DataIntegrityViolationException e) {
+            chunk.values().forEach(row -> errors.add(new ImportRowError(row.line(), "0200", "Asset Already exist")));
+            return 0;
+        }
+    }
+
+    private AssetDTO parseAssetRow(String line) {
+
+        List<String> fields = parseCsvLine(line);
+        if(fields.size() != 4)
+            return null;
+
+        AssetDTO row;
+        try {
+            row = new AssetDTO(fields.get(0), fields.get(1), Double.valueOf(fields.get(2)), fields.get(3));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return validator.validate(row).isEmpty() ? row : null;
+    }
+
+    /**
+     * Splits one CSV record, honouring double-quoted fields with embedded commas and {@code ""} escapes.
+     */
+    private static List<String> parseCsvLine(String line) {
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(quoted) {
+                if(c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if(c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if(c == '"') {
+                quoted = true;
+            } else if(c == ',') {
+                fields.add(field.toString().strip());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().strip());
+        return fields;
+    }
+
+    /**
+     * Bumps the user's asset list version inside the current transaction and drops the cached list once it commits.
+     * Every write that changes a user's assets goes through here, which keeps the cache and the ETags in step.
+     */
+    private void touchUser(String uid) {
+
+        assetVersionRepository.bump(uid);
+        afterCommit(() -> {
+            replicaRouting.recordWrite(uid);
+            assetCache.invalidate(uid);
         });
     }
 
-    public void updateAsset(String userUID, PaymentDTO request, boolean fromMQ) {
+    private void afterCommit(Runnable action) {
+
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private List<BalanceLeg> messageQueueLegs(AssetMessage message) {
+
+        if(message.getAction() == MessageAction.REVERSE)
+            return reverseLegs(message.getReverseRecord(), message.getRequestRecord(), message.getUid());
+
+        return paymentLegs(message.getUid(), message.getRequestRecord(), false);
+    }
+
+    private List<BalanceLeg> paymentLegs(String userUID, PaymentDTO request, boolean required) {
 
         if(userUID == null || userUID.isEmpty())
             throw new ForbiddenException("999", "Missing user info");
@@ -137,29 +747,258 @@ public class AssetSummaryService {
         if(request == null || request.getPaymentFrom() == null || request.getPaymentTo() == null)
             throw new GlobalException("0210", "Invalid request");
 
-        Optional<Asset> assetFrom = assetRepository.findByNameAndUID(request.getPaymentFrom(), userUID);
-        assetFrom.ifPresentOrElse(asset -> {
-            asset.setBalance(asset.getBalance() - (request.getEstimateValue() != null ? request.getEstimateValue() : request.getAmount()));
-            assetRepository.save(asset);
-            log.info("Updating asset: {}", asset.getName());
-        }, () -> {
-            if(!fromMQ) throw new AssetNotFound("0202", "Asset Not Found in given record");
+        long value = paymentValue(request);
+
+        return List.of(
+                new BalanceLeg(new AssetKey(userUID, request.getPaymentFrom()), -value, request.getCurrency(), required),
+                new BalanceLeg(new AssetKey(userUID, request.getPaymentTo()), value, request.getCurrency(), required));
+    }
+
+    private List<BalanceLeg> reverseLegs(PaymentDTO reverseRecord, PaymentDTO request, String UID) {
+
+        if(reverseRecord.getPaymentFrom() == null || reverseRecord.getPaymentTo() == null)
+            throw new GlobalException("0210", "Invalid request");
+
+        if(!reverseRecord.getPaymentFrom().equals(request.getPaymentTo()))
+            throw new GlobalException("0211", "Invalid reverse request");
+
+        long reversed = Money.toMinor(reverseRecord.getAmount(), reverseRecord.getCurrency());
+        long replaced = Money.toMinor(request.getAmount(), request.getCurrency());
+        AssetKey from = new AssetKey(UID, request.getPaymentFrom());
+        AssetKey to = new AssetKey(UID, request.getPaymentTo());
+
+        return List.of(
+                new BalanceLeg(from, reversed, reverseRecord.getCurrency(), true),
+                new BalanceLeg(from, -replaced, request.getCurrency(), true),
+                new BalanceLeg(to, -reversed, reverseRecord.getCurrency(), true),
+                new BalanceLeg(to, replaced, request.getCurrency(), true));
+    }
+
+    private List<BalanceLeg> cancelLegs(AssetMessage message) {
+
+        PaymentDTO request = message.getCancel();
+        String UID = message.getUid();
+        long amount = Money.toMinor(request.getAmount(), request.getCurrency());
+
+        return List.of(
+                new BalanceLeg(new AssetKey(UID, request.getPaymentFrom()), amount, request.getCurrency(), true),
+                new BalanceLeg(new AssetKey(UID, request.getPaymentTo()), -amount, request.getCurrency(), true));
+    }
+
+    /**
+     * Amount a payment moves between its two assets in minor units of the payment currency: the estimated value
+     * when there is one.
+     */
+    private static long paymentValue(PaymentDTO request) {
+
+        return Money.toMinor(request.getEstimateValue() != null ? request.getEstimateValue() : request.getAmount(), request.getCurrency());
+    }
+
+    /**
+     * FX conversion stage: re-expresses every leg in the currency of its asset at the current rate and merges legs
+     * on the same asset. Legs on assets that do not exist pass through unchanged and fail or are skipped when applied.
+     */
+    private List<BalanceLeg> convertLegs(List<BalanceLeg> legs) {
+
+        return convertLegs(legs, assetCurrencies(legs));
+    }
+
+    private List<BalanceLeg> convertLegs(List<BalanceLeg> legs, Map<AssetKey, String> currencies) {
+
+        Map<AssetKey, BalanceLeg> converted = new LinkedHashMap<>();
+        for(BalanceLeg leg : legs) {
+            String currency = currencies.getOrDefault(leg.key(), leg.currency());
+            long delta = fxRateTable.convert(leg.delta(), leg.currency(), currency);
+            converted.merge(leg.key(), new BalanceLeg(leg.key(), delta, currency, leg.required()), BalanceLeg::plus);
+        }
+        return new ArrayList<>(converted.values());
+    }
+
+    /**
+     * Reads the currency of every asset the legs touch with one query per user, in uid order. In pessimistic mode
+     * the same query also locks the assets, so a mutation holds all its rows before it updates any of them.
+     */
+    private Map<AssetKey, String> assetCurrencies(Collection<BalanceLeg> legs) {
+
+        Map<String, Set<String>> names = new TreeMap<>();
+        for(BalanceLeg leg : legs)
+            names.computeIfAbsent(leg.key().uid(), uid -> new HashSet<>()).add(leg.key().assetName());
+
+        Map<AssetKey, String> currencies = new HashMap<>();
+        names.forEach((uid, assetNames) -> {
+            Map<String, String> found = lockingMode == LockingMode.PESSIMISTIC
+                    ? lockAssets(uid, assetNames)
+                    : assetJdbcRepository.findCurrencies(uid, assetNames);
+            found.forEach((name, currency) -> currencies.put(new AssetKey(uid, name), currency));
         });
+        return currencies;
+    }
 
-        Optional<Asset> assetTo = assetRepository.findByNameAndUID(request.getPaymentTo(), userUID);
-        assetTo.ifPresentOrElse(asset -> {
-            asset.setBalance(asset.getBalance() + (request.getEstimateValue() != null ? request.getEstimateValue() : request.getAmount()));
-            assetRepository.save(asset);
-            log.info("Updating asset: {}", asset.getName());
-        }, () -> {
-            if(!fromMQ) throw new AssetNotFound("0202", "Asset Not Found in given record");
+    /**
+     * A lock wait that runs out of {@code asset.locking.timeout} fails the mutation with a retryable error instead
+     * of holding the caller, or an MQ lane, any longer.
+     */
+    private Map<String, String> lockAssets(String uid, Collection<String> names) {
+
+        try {
+            return assetJdbcRepository.lockCurrencies(uid, names);
+        } catch (PessimisticLockingFailureException e) {
+            log.warn("Timed out locking assets {} of user {}: {}", names, uid, e.getMessage());
+            throw new GlobalException("0220", "Asset is locked by another update");
+        }
+    }
+
+    /**
+     * Adds each leg's delta to its asset with a single UPDATE statement and appends the ledger entries with one insert.
+     * A missing asset fails the surrounding transaction when the leg is required, otherwise it is skipped.
+     * <p>
+     * This path is not insert-only. In the default pessimistic mode, one payment message costs eight statements in
+     * one transaction: the processed-message insert, the locking read of both assets, two balance UPDATEs, the ledger
+     * insert, the history upsert, the summary upsert and the version bump. It holds row locks on both assets, their
+     * history and summary rows and the user's version row until commit. The code before the ledger sent four
+     * statements and locked two rows. A batch shares every statement except the per-message insert. History and summary
+     * stay on this path so that reads right after a write see them.
+     */
+    private void applyLegs(Collection<BalanceLeg> legs, List<LedgerEntry> entries) {
+
+        Map<String, Map<String, BalanceLeg>> touchedAssets = lockingMode == LockingMode.OPTIMISTIC
+                ? applyVersionedLegs(legs)
+                : applyInPlaceLegs(legs);
+
+        assetLedgerRepository.append(entries);
+        touchedAssets.forEach((uid, touched) -> {
+            recordBalanceChanges(uid, touched);
+            touchUser(uid);
         });
     }
 
-    public void deleteAsset(String uid, AssetDTO request) {
+    private Map<String, Map<String, BalanceLeg>> applyInPlaceLegs(Collection<BalanceLeg> legs) {
 
-        assetRepository.findByNameAndUID(request.getName(), uid).ifPresentOrElse(asset -> assetRepository.delete(asset), () -> {
-            throw new AssetNotFound("0202","Asset Not Found in given record");
+        Map<String, Map<String, BalanceLeg>> touchedAssets = new HashMap<>();
+        for(BalanceLeg leg : legs) {
+            if(leg.delta() == 0 && !leg.required())
+                continue;
+
+            if(assetRepository.updateBalance(leg.key().uid(), leg.key().assetName(), leg.delta()) == 0) {
+                if(leg.required()) throw new AssetNotFound("0202", "Asset Not Found in given record");
+                continue;
+            }
+            log.info("Updating asset: {}", leg.key().assetName());
+            touchedAssets.computeIfAbsent(leg.key().uid(), uid -> new HashMap<>()).merge(leg.key().assetName(), leg, BalanceLeg::plus);
+        }
+        return touchedAssets;
+    }
+
+    /**
+     * Optimistic mode: loads the touched assets, changes their balances and flushes right away, so Hibernate checks
+     * each row's version and a concurrent update surfaces here rather than at commit, before the history and
+     * summary statements read the new balances.
+     */
+    private Map<String, Map<String, BalanceLeg>> applyVersionedLegs(Collection<BalanceLeg> legs) {
+
+        Map<String, Map<String, BalanceLeg>> touchedAssets = new HashMap<>();
+        Map<String, List<BalanceLeg>> legsByUid = new TreeMap<>();
+        for(BalanceLeg leg : legs) {
+            if(leg.delta() != 0 || leg.required())
+                legsByUid.computeIfAbsent(leg.key().uid(), uid -> new ArrayList<>()).add(leg);
+        }
+
+        List<Asset> changed = new ArrayList<>();
+        legsByUid.forEach((uid, userLegs) -> {
+            Map<String, Asset> assets = new HashMap<>();
+            assetRepository.findByUIDAndNameIn(uid, userLegs.stream().map(leg -> leg.key().assetName()).toList())
+                    .forEach(asset -> assets.put(asset.getName(), asset));
+
+            for(BalanceLeg leg : userLegs) {
+                Asset asset = assets.get(leg.key().assetName());
+                if(asset == null) {
+                    if(leg.required()) throw new AssetNotFound("0202", "Asset Not Found in given record");
+                    continue;
+                }
+                log.info("Updating asset: {}", leg.key().assetName());
+                asset.setBalance(asset.getBalance() + leg.delta());
+                changed.add(asset);
+                touchedAssets.computeIfAbsent(uid, key -> new HashMap<>()).merge(leg.key().assetName(), leg, BalanceLeg::plus);
+            }
         });
+
+        assetRepository.saveAllAndFlush(changed);
+        return touchedAssets;
+    }
+
+    private void addToVersionedBalances(Collection<Asset> assets, Map<Long, Long> deltas) {
+
+        List<Asset> changed = new ArrayList<>(deltas.size());
+        for(Asset asset : assets) {
+            Long delta = deltas.get(asset.getId());
+            if(delta == null || delta == 0)
+                continue;
+            asset.setBalance(asset.getBalance() + delta);
+            changed.add(asset);
+        }
+        assetRepository.saveAllAndFlush(changed);
+    }
+
+    private void mutate(String operation, Runnable mutation) {
+
+        optimisticRetry.run(operation, () -> transactionTemplate.execute(status -> {
+            mutation.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Opens the ledger, today's history row and the summary totals of freshly inserted assets.
+     */
+    private void recordCreated(String uid, List<Asset> assets) {
+
+        List<LedgerEntry> entries = new ArrayList<>(assets.size());
+        List<SummaryChange> changes = new ArrayList<>(assets.size());
+        for(Asset asset : assets) {
+            entries.add(LedgerEntry.opening(uid, asset.getName(), asset.getBalance()));
+            changes.add(new SummaryChange(asset.getName(), asset.getBalance(), 1));
+        }
+        assetLedgerRepository.append(entries);
+        assetHistoryRepository.recordDaily(uid, entries.stream().map(LedgerEntry::assetName).toList());
+        userSummaryRepository.apply(uid, changes);
+    }
+
+    private void recordBalanceChanges(String uid, Map<String, BalanceLeg> touched) {
+
+        List<SummaryChange> changes = new ArrayList<>(touched.size());
+        touched.forEach((name, leg) -> changes.add(new SummaryChange(name, leg.delta(), 0)));
+        assetHistoryRepository.recordDaily(uid, touched.keySet());
+        userSummaryRepository.apply(uid, changes);
+    }
+
+    private List<LedgerEntry> ledgerEntries(List<BalanceLeg> legs, AssetMessage message) {
+
+        PaymentDTO paymentRecord = message.getPaymentRecord();
+        return ledgerEntries(legs, paymentRecord != null ? paymentRecord.getUuid() : null, message.getAction());
+    }
+
+    private List<LedgerEntry> ledgerEntries(List<BalanceLeg> legs, UUID paymentUuid, MessageAction action) {
+
+        List<LedgerEntry> entries = new ArrayList<>(legs.size());
+        for(BalanceLeg leg : legs)
+            entries.add(new LedgerEntry(leg.key().uid(), leg.key().assetName(), paymentUuid, action.name(), leg.delta()));
+        return entries;
+    }
+
+    private record AssetKey(String uid, String assetName) {
+    }
+
+    private record ImportRow(long line, AssetDTO asset) {
+    }
+
+    /**
+     * Signed change of one asset in minor units of {@code currency}: the payment currency until the leg has been
+     * through {@link #convertLegs}, the asset currency after.
+     */
+    private record BalanceLeg(AssetKey key, long delta, String currency, boolean required) {
+
+        BalanceLeg plus(BalanceLeg other) {
+            return new BalanceLeg(key, delta + other.delta, currency, required || other.required);
+        }
     }
 }
@@ -0,0 +1,187 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.dto.FxRate;
+import com.bookkeeper.AssetSummary.model.dto.Money;
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+import com.bookkeeper.AssetSummary.repository.FxRateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory copy of the fx_rate table. Conversions read an immutable snapshot through one volatile field, so they
+ * take no lock and allocate nothing; a refresh builds a complete new snapshot and swaps it in.
+ * Currency codes are packed into ints and a pair indexes a dense matrix of minor-unit factors.
+ */
+@Slf4j
+@Component
+public class FxRateTable {
+
+    private static final int CODES = 26 * 26 * 26;
+
+    private static final double MAX_EXACT = 0x1p53;
+
+    private final FxRateRepository fxRateRepository;
+
+    private volatile Rates rates = Rates.of(List.of());
+
+    public FxRateTable(FxRateRepository fxRateRepository) {
+        this.fxRateRepository = fxRateRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${asset.fx.refresh-interval:PT5M}")
+    public void refresh() {
+
+        load(fxRateRepository.findAll());
+    }
+
+    public void load(List<FxRate> fxRates) {
+
+        Rates loaded = Rates.of(fxRates);
+        rates = loaded;
+        log.info("Loaded {} FX rates for {} currencies", fxRates.size(), loaded.size);
+    }
+
+    /**
+     * Converts minor units of {@code from} into minor units of {@code to}, rounding to the nearest unit.
+     * Pairs without a listed or inverse rate are crossed through {@link Money#DEFAULT_CURRENCY}.
+     */
+    public long convert(long amount, String from, String to) {
+
+        if(from == null)
+            from = Money.DEFAULT_CURRENCY;
+        if(to == null)
+            to = Money.DEFAULT_CURRENCY;
+        if(amount == 0 || from.equals(to))
+            return amount;
+
+        double factor = rates.factor(code(from), code(to));
+        if(Double.isNaN(factor))
+            throw new GlobalException("0217", "Unsupported currency");
+
+        double converted = amount * factor;
+        if(!(Math.abs(converted) < MAX_EXACT))
+            throw new GlobalException("0210", "Invalid request");
+
+        return Math.round(converted);
+    }
+
+    /**
+     * @return the three-letter code packed as base-26 digits, or -1 when it is not three upper case letters
+     */
+    static int code(String currency) {
+
+        if(currency.length() != 3)
+            return -1;
+
+        int code = 0;
+        for(int i = 0; i < 3; i++) {
+            int letter = currency.charAt(i) - 'A';
+            if(letter < 0 || letter >= 26)
+                return -1;
+            code = code * 26 + letter;
+        }
+        return code;
+    }
+
+    private static final class Rates {
+
+        private final short[] slots;
+
+        private final double[] factors;
+
+        private final int size;
+
+        private Rates(short[] slots, double[] factors, int size) {
+            this.slots = slots;
+            this.factors = factors;
+            this.size = size;
+        }
+
+        double factor(int from, int to) {
+
+            if(from < 0 || to < 0)
+                return Double.NaN;
+
+            int i = slots[from] - 1;
+            int j = slots[to] - 1;
+            if(i < 0 || j < 0)
+                return Double.NaN;
+
+            return factors[i * size + j];
+        }
+
+        /**
+         * Listed rates win over derived inverses, and both win over crosses through the default currency.
+         */
+        static Rates of(List<FxRate> fxRates) {
+
+            short[] slots = new short[CODES];
+            int[] scales = new int[fxRates.size() * 2 + 1];
+            int size = 0;
+            slots[code(Money.DEFAULT_CURRENCY)] = (short) ++size;
+            scales[0] = Money.scale(Money.DEFAULT_CURRENCY);
+
+            boolean[] valid = new boolean[fxRates.size()];
+            for(int r = 0; r < fxRates.size(); r++) {
+                FxRate rate = fxRates.get(r);
+                int base = rate.baseCurrency() != null ? code(rate.baseCurrency()) : -1;
+                int quote = rate.quoteCurrency() != null ? code(rate.quoteCurrency()) : -1;
+                if(base < 0 || quote < 0 || !(rate.rate() > 0) || !isCurrency(rate.baseCurrency()) || !isCurrency(rate.quoteCurrency())) {
+                    log.warn("Ignoring FX rate {}", rate);
+                    continue;
+                }
+                for(int code : new int[]{base, quote}) {
+                    if(slots[code] == 0) {
+                        scales[size] = Money.scale(code == base ? rate.baseCurrency() : rate.quoteCurrency());
+                        slots[code] = (short) ++size;
+                    }
+                }
+                valid[r] = true;
+            }
+
+            double[] factors = new double[size * size];
+            Arrays.fill(factors, Double.NaN);
+            for(int i = 0; i < size; i++)
+                factors[i * size + i] = 1;
+
+            for(int pass = 0; pass < 2; pass++) {
+                for(int r = 0; r < fxRates.size(); r++) {
+                    if(!valid[r])
+                        continue;
+
+                    FxRate rate = fxRates.get(r);
+                    int i = slots[code(rate.baseCurrency())] - 1;
+                    int j = slots[code(rate.quoteCurrency())] - 1;
+                    double factor = rate.rate() * Math.pow(10, scales[j] - scales[i]);
+                    if(pass == 0)
+                        factors[j * size + i] = 1 / factor;
+                    else
+                        factors[i * size + j] = factor;
+                }
+            }
+
+            for(int i = 0; i < size; i++) {
+                for(int j = 0; j < size; j++) {
+                    if(Double.isNaN(factors[i * size + j]))
+                        factors[i * size + j] = factors[i * size] * factors[j];
+                }
+            }
+
+            return new Rates(slots, factors, size);
+        }
+
+        private static boolean isCurrency(String currency) {
+
+            try {
+                Money.scale(currency);
+                return true;
+            } catch (GlobalException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.repository.AssetHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps the yearly partitions of asset_daily_balance ahead of the calendar: the current year and the next
+ * {@code asset.history.partitions-ahead} years are created if missing, so new days never land in the DEFAULT
+ * partition. A failed run is logged and retried on the next one.
+ * Partitions are never dropped here. The history endpoint reads at most {@code asset.history.max-days} back, so a
+ * year older than that can be retired by hand with {@code ALTER TABLE asset_daily_balance DETACH PARTITION
+ * asset_daily_balance_<year>} followed by {@code DROP TABLE}, or archived after the detach.
+ */
+@Slf4j
+@Component
+public class HistoryPartitionJob {
+
+    private final AssetHistoryRepository assetHistoryRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int yearsAhead;
+
+    public HistoryPartitionJob(AssetHistoryRepository assetHistoryRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${asset.history.partitions-ahead:1}") int yearsAhead) {
+        this.assetHistoryRepository = assetHistoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.yearsAhead = yearsAhead;
+    }
+
+    @Scheduled(fixedDelayString = "${asset.history.partition-interval:PT24H}")
+    public void createPartitions() {
+
+        int currentYear = LocalDate.now().getYear();
+        for(int year = currentYear; year <= currentYear + yearsAhead; year++) {
+            int partitionYear = year;
+            try {
+                if(Boolean.TRUE.equals(transactionTemplate.execute(status -> assetHistoryRepository.createYearPartition(partitionYear))))
+                    log.info("Created asset_daily_balance partition for {}", partitionYear);
+            } catch (DataAccessException e) {
+                log.error("Could not create asset_daily_balance partition for {}: {}", partitionYear, e.getMessage());
+            }
+        }
+    }
+}
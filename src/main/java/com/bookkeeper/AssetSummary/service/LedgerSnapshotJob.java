@@ -0,0 +1,35 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.repository.AssetLedgerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Periodically folds the ledger tail of every asset into a new balance snapshot, which keeps the number of
+ * entries needed to rebuild a balance short.
+ */
+@Slf4j
+@Component
+public class LedgerSnapshotJob {
+
+    private final AssetLedgerRepository assetLedgerRepository;
+
+    private final Duration lag;
+
+    public LedgerSnapshotJob(AssetLedgerRepository assetLedgerRepository,
+                             @Value("${asset.ledger.snapshot-lag:1m}") Duration lag) {
+        this.assetLedgerRepository = assetLedgerRepository;
+        this.lag = lag;
+    }
+
+    @Scheduled(fixedDelayString = "${asset.ledger.snapshot-interval:PT1H}")
+    public void snapshot() {
+
+        int snapshots = assetLedgerRepository.snapshot(lag);
+        log.info("Wrote {} balance snapshots", snapshots);
+    }
+}
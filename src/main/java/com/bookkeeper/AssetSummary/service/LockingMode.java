@@ -0,0 +1,19 @@
+package com.bookkeeper.AssetSummary.service;
+
+/**
+ * How balance mutations guard against concurrent writers, chosen per deployment with {@code asset.locking.mode}.
+ * <ul>
+ *     <li>{@code ATOMIC}: every leg is a single {@code balance = balance + delta} update, rows are locked in the
+ *     order the legs come in, so opposite transfers between the same assets can deadlock</li>
+ *     <li>{@code PESSIMISTIC}: all assets a mutation touches are locked up front with one
+ *     {@code SELECT ... FOR UPDATE} in id order before any of them is updated</li>
+ *     <li>{@code OPTIMISTIC}: the assets are read without locks and written back through the {@code VERSION} check,
+ *     a transaction that lost the check is re-run by {@link OptimisticRetry} with jittered backoff, up to
+ *     {@code asset.optimistic.max-attempts} times, then fails with 0221</li>
+ * </ul>
+ */
+public enum LockingMode {
+    ATOMIC,
+    PESSIMISTIC,
+    OPTIMISTIC
+}
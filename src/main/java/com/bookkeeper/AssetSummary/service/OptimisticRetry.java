@@ -0,0 +1,97 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a balance mutation whose transaction lost an optimistic version check. Each retry sleeps a random time
+ * between zero and an exponentially growing cap (full jitter), so writers that collided do not collide again in
+ * lockstep. After {@code asset.optimistic.max-attempts} attempts the mutation fails with a retryable error.
+ * Per operation it counts executions, conflicts, retries and exhausted mutations, which gives the contention
+ * to compare optimistic against pessimistic mode.
+ * The mutation must start its own transaction; inside a caller's transaction it runs once, as the caller's
+ * transaction is already marked for rollback.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxAttempts;
+
+    private final long backoffNanos;
+
+    private final long maxBackoffNanos;
+
+    public OptimisticRetry(MeterRegistry meterRegistry,
+                           @Value("${asset.optimistic.max-attempts:5}") int maxAttempts,
+                           @Value("${asset.optimistic.backoff:10ms}") Duration backoff,
+                           @Value("${asset.optimistic.max-backoff:200ms}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffNanos = backoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public void run(String operation, Runnable mutation) {
+
+        call(operation, () -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    public <T> T call(String operation, Supplier<T> mutation) {
+
+        counter("asset.mutation.executions", operation).increment();
+        if(TransactionSynchronizationManager.isActualTransactionActive())
+            return mutation.get();
+
+        for(int attempt = 1; ; attempt++) {
+            try {
+                return mutation.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                counter("asset.mutation.conflicts", operation).increment();
+                if(attempt >= maxAttempts) {
+                    counter("asset.mutation.exhausted", operation).increment();
+                    log.warn("{} still conflicting after {} attempts: {}", operation, attempt, e.getMessage());
+                    throw new GlobalException("0221", "Asset was updated concurrently");
+                }
+
+                counter("asset.mutation.retries", operation).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) {
+
+        long cap = Math.min(maxBackoffNanos, backoffNanos << Math.min(attempt - 1, 20));
+        if(cap <= 0)
+            return;
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GlobalException("0221", "Asset was updated concurrently");
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
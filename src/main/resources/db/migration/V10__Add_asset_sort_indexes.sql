@@ -0,0 +1,2 @@
+CREATE INDEX ASSET_UID_TYPE_NAME_IDX ON ASSET (UID, TYPE, NAME);
+CREATE INDEX ASSET_UID_BALANCE_NAME_IDX ON ASSET (UID, BALANCE, NAME);
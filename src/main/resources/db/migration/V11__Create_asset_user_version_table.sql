@@ -0,0 +1,8 @@
+create table ASSET_USER_VERSION (
+    UID VARCHAR(256) not null PRIMARY KEY,
+    VERSION BIGINT not null,
+    UPDATED_DATE TIMESTAMP not null DEFAULT NOW()
+);
+
+INSERT INTO ASSET_USER_VERSION (UID, VERSION, UPDATED_DATE)
+SELECT UID, 1, COALESCE(MAX(GREATEST(CREATED_DATE, UPDATED_DATE)), NOW()) FROM ASSET GROUP BY UID;
@@ -0,0 +1,23 @@
+create table ASSET_LEDGER (
+    ID BIGSERIAL not null PRIMARY KEY,
+    ASSET_ID BIGINT not null,
+    PAYMENT_UUID UUID,
+    ACTION VARCHAR(16) not null,
+    DELTA DOUBLE PRECISION not null,
+    CREATED_DATE TIMESTAMP not null DEFAULT clock_timestamp()
+);
+
+CREATE INDEX ASSET_LEDGER_ASSET_ID_IDX ON ASSET_LEDGER (ASSET_ID, ID);
+CREATE INDEX ASSET_LEDGER_PAYMENT_UUID_IDX ON ASSET_LEDGER (PAYMENT_UUID);
+
+create table ASSET_BALANCE_SNAPSHOT (
+    ASSET_ID BIGINT not null,
+    LEDGER_ID BIGINT not null,
+    BALANCE DOUBLE PRECISION not null,
+    SNAPSHOT_DATE TIMESTAMP not null DEFAULT NOW(),
+    PRIMARY KEY (ASSET_ID, LEDGER_ID)
+);
+
+-- Existing balances predate the ledger, so they become the opening snapshot every later delta builds on.
+INSERT INTO ASSET_BALANCE_SNAPSHOT (ASSET_ID, LEDGER_ID, BALANCE)
+SELECT ID, 0, BALANCE FROM ASSET;
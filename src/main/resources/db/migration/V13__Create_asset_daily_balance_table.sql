@@ -0,0 +1,17 @@
+create table ASSET_DAILY_BALANCE (
+    ASSET_ID BIGINT not null,
+    DAY DATE not null,
+    BALANCE DOUBLE PRECISION not null,
+    PRIMARY KEY (ASSET_ID, DAY) INCLUDE (BALANCE)
+) PARTITION BY RANGE (DAY);
+
+create table ASSET_DAILY_BALANCE_2023 PARTITION OF ASSET_DAILY_BALANCE FOR VALUES FROM ('2023-01-01') TO ('2024-01-01');
+create table ASSET_DAILY_BALANCE_2024 PARTITION OF ASSET_DAILY_BALANCE FOR VALUES FROM ('2024-01-01') TO ('2025-01-01');
+create table ASSET_DAILY_BALANCE_2025 PARTITION OF ASSET_DAILY_BALANCE FOR VALUES FROM ('2025-01-01') TO ('2026-01-01');
+create table ASSET_DAILY_BALANCE_2026 PARTITION OF ASSET_DAILY_BALANCE FOR VALUES FROM ('2026-01-01') TO ('2027-01-01');
+create table ASSET_DAILY_BALANCE_2027 PARTITION OF ASSET_DAILY_BALANCE FOR VALUES FROM ('2027-01-01') TO ('2028-01-01');
+create table ASSET_DAILY_BALANCE_2028 PARTITION OF ASSET_DAILY_BALANCE FOR VALUES FROM ('2028-01-01') TO ('2029-01-01');
+create table ASSET_DAILY_BALANCE_DEFAULT PARTITION OF ASSET_DAILY_BALANCE DEFAULT;
+
+INSERT INTO ASSET_DAILY_BALANCE (ASSET_ID, DAY, BALANCE)
+SELECT ID, CURRENT_DATE, BALANCE FROM ASSET;
@@ -0,0 +1,14 @@
+create table ASSET_USER_SUMMARY (
+    UID VARCHAR(256) not null,
+    DIMENSION VARCHAR(8) not null,
+    KEY VARCHAR(256) not null,
+    TOTAL DOUBLE PRECISION not null,
+    ASSET_COUNT INT not null,
+    PRIMARY KEY (UID, DIMENSION, KEY)
+);
+
+INSERT INTO ASSET_USER_SUMMARY (UID, DIMENSION, KEY, TOTAL, ASSET_COUNT)
+SELECT UID, 'TYPE', COALESCE(TYPE, ''), SUM(BALANCE), COUNT(*) FROM ASSET GROUP BY UID, COALESCE(TYPE, '');
+
+INSERT INTO ASSET_USER_SUMMARY (UID, DIMENSION, KEY, TOTAL, ASSET_COUNT)
+SELECT UID, 'COLOR', COALESCE(COLOR, ''), SUM(BALANCE), COUNT(*) FROM ASSET GROUP BY UID, COALESCE(COLOR, '');
@@ -0,0 +1,6 @@
+-- Amounts become whole minor units of the asset currency. Every existing balance is in HKD, which has two decimals.
+ALTER TABLE ASSET ALTER COLUMN BALANCE TYPE BIGINT USING ROUND(BALANCE * 100);
+ALTER TABLE ASSET_LEDGER ALTER COLUMN DELTA TYPE BIGINT USING ROUND(DELTA * 100);
+ALTER TABLE ASSET_BALANCE_SNAPSHOT ALTER COLUMN BALANCE TYPE BIGINT USING ROUND(BALANCE * 100);
+ALTER TABLE ASSET_DAILY_BALANCE ALTER COLUMN BALANCE TYPE BIGINT USING ROUND(BALANCE * 100);
+ALTER TABLE ASSET_USER_SUMMARY ALTER COLUMN TOTAL TYPE BIGINT USING ROUND(TOTAL * 100);
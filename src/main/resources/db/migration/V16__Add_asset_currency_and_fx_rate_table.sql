@@ -0,0 +1,10 @@
+ALTER TABLE ASSET ADD COLUMN CURRENCY VARCHAR(3) not null DEFAULT 'HKD';
+
+-- Units of QUOTE_CURRENCY per unit of BASE_CURRENCY. The inverse pair is derived when it is not listed.
+create table FX_RATE (
+    BASE_CURRENCY VARCHAR(3) not null,
+    QUOTE_CURRENCY VARCHAR(3) not null,
+    RATE NUMERIC(24, 12) not null CHECK (RATE > 0),
+    UPDATED_DATE TIMESTAMP not null DEFAULT NOW(),
+    PRIMARY KEY (BASE_CURRENCY, QUOTE_CURRENCY)
+);
@@ -0,0 +1,2 @@
+-- Optimistic lock version of the row, bumped by every balance update whatever the locking mode.
+ALTER TABLE ASSET ADD COLUMN VERSION BIGINT not null DEFAULT 0;
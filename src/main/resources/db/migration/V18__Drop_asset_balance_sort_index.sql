@@ -0,0 +1,2 @@
+-- Every transfer updates BALANCE, and an index on it rules out HOT updates of the row. Balance pages are sorted in memory instead.
+DROP INDEX IF EXISTS ASSET_UID_BALANCE_NAME_IDX;
@@ -0,0 +1,13 @@
+-- Totals are kept in the currency of their assets and converted when read, so deleting an asset takes out exactly
+-- what it put in. The rows are rebuilt from the assets, which also drops amounts left over by earlier conversions.
+ALTER TABLE ASSET_USER_SUMMARY ADD COLUMN CURRENCY VARCHAR(3) not null DEFAULT 'HKD';
+ALTER TABLE ASSET_USER_SUMMARY DROP CONSTRAINT ASSET_USER_SUMMARY_PKEY;
+ALTER TABLE ASSET_USER_SUMMARY ADD PRIMARY KEY (UID, DIMENSION, KEY, CURRENCY);
+
+DELETE FROM ASSET_USER_SUMMARY;
+
+INSERT INTO ASSET_USER_SUMMARY (UID, DIMENSION, KEY, CURRENCY, TOTAL, ASSET_COUNT)
+SELECT UID, 'TYPE', COALESCE(TYPE, ''), CURRENCY, SUM(BALANCE), COUNT(*) FROM ASSET GROUP BY UID, COALESCE(TYPE, ''), CURRENCY;
+
+INSERT INTO ASSET_USER_SUMMARY (UID, DIMENSION, KEY, CURRENCY, TOTAL, ASSET_COUNT)
+SELECT UID, 'COLOR', COALESCE(COLOR, ''), CURRENCY, SUM(BALANCE), COUNT(*) FROM ASSET GROUP BY UID, COALESCE(COLOR, ''), CURRENCY;
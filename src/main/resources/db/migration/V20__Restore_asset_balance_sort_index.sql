@@ -0,0 +1,5 @@
+-- Balance pages are keyset queries again and need this index. The cost: BALANCE is indexed, so a balance update is never
+-- HOT. Each transfer leg writes one entry into each of the six ASSET indexes (the primary key, ASSET_UID_NAME_IDX,
+-- ASSET_EMAIL_UID_IDX, ASSET_NAME_IDX, ASSET_UID_TYPE_NAME_IDX and this one), so a two-leg transfer costs 12 index
+-- inserts where a HOT update would cost none, and vacuum later has 12 dead entries to remove.
+CREATE INDEX IF NOT EXISTS ASSET_UID_BALANCE_NAME_IDX ON ASSET (UID, BALANCE, NAME);
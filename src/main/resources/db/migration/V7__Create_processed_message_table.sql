@@ -0,0 +1,6 @@
+create table PROCESSED_MESSAGE (
+    UUID UUID not null,
+    ACTION VARCHAR(16) not null,
+    PROCESSED_DATE TIMESTAMP not null DEFAULT NOW(),
+    PRIMARY KEY (UUID, ACTION)
+);
@@ -0,0 +1,3 @@
+CREATE UNIQUE INDEX ASSET_UID_NAME_IDX ON ASSET (UID, NAME);
+CREATE INDEX ASSET_EMAIL_UID_IDX ON ASSET (EMAIL, UID);
+CREATE INDEX ASSET_NAME_IDX ON ASSET (NAME);
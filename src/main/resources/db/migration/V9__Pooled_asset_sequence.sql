@@ -0,0 +1 @@
+ALTER SEQUENCE ASSET_SEQ INCREMENT BY 50;
@@ -0,0 +1,80 @@
+package com.bookkeeper.AssetSummary.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LaneDispatcher laneDispatcher = new LaneDispatcher(4, meterRegistry);
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        laneDispatcher.destroy();
+    }
+
+    @Test
+    void testSameKeyKeepsOrder() throws Exception {
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for(int i = 0; i < 500; i++) {
+            int sequence = i;
+            futures.add(laneDispatcher.dispatch("sdg3258rgdsjhgbj32dfgf8865", () -> processed.add(sequence)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        for(int i = 0; i < 500; i++)
+            assertEquals(i, processed.get(i));
+    }
+
+    @Test
+    void testSlowLaneDoesNotBlockOtherLanes() throws Exception {
+        String slowUser = "slow-user";
+        String fastUser = findKeyOnOtherLane(slowUser);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> slow = laneDispatcher.dispatch(slowUser, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Void> fast = laneDispatcher.dispatch(fastUser, () -> { });
+
+        fast.get(5, TimeUnit.SECONDS);
+        assertFalse(slow.isDone());
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testLaneMetrics() throws Exception {
+        laneDispatcher.dispatch("sdg3258rgdsjhgbj32dfgf8865", () -> { }).get(5, TimeUnit.SECONDS);
+
+        String lane = String.valueOf(laneDispatcher.laneOf("sdg3258rgdsjhgbj32dfgf8865"));
+        assertEquals(1, meterRegistry.get("asset.mq.lane.latency").tag("lane", lane).timer().count());
+        assertEquals(0, meterRegistry.get("asset.mq.lane.depth").tag("lane", lane).gauge().value());
+    }
+
+    private String findKeyOnOtherLane(String key) {
+        int lane = laneDispatcher.laneOf(key);
+        for(int i = 0; ; i++) {
+            String candidate = "user-" + i;
+            if(laneDispatcher.laneOf(candidate) != lane)
+                return candidate;
+        }
+    }
+}
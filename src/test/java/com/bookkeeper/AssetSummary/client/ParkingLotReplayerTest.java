@@ -0,0 +1,180 @@
+package com.bookkeeper.AssetSummary.client;
+
+import com.bookkeeper.AssetSummary.config.RabbitConfig;
+import com.bookkeeper.AssetSummary.config.RetryTopology;
+import com.bookkeeper.AssetSummary.model.dto.ReplayState;
+import com.bookkeeper.AssetSummary.model.dto.ReplayStatus;
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.service.AssetSummaryService;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ParkingLotReplayerTest {
+
+    private final RetryTopology retryTopology = new RetryTopology("asset", List.of(Duration.ofSeconds(5)));
+
+    private final MessageConverter messageConverter = new RabbitConfig().jacksonConverter();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LaneDispatcher laneDispatcher = new LaneDispatcher(4, meterRegistry);
+
+    private final AssetSummaryService assetSummaryService = mock(AssetSummaryService.class);
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+
+    private final Channel channel = mock(Channel.class);
+
+    private final Deque<GetResponse> parkingLot = new ArrayDeque<>();
+
+    private ParkingLotReplayer parkingLotReplayer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        parkingLotReplayer = new ParkingLotReplayer(rabbitTemplate, retryTopology, messageConverter, laneDispatcher,
+                assetSummaryService, meterRegistry, 100, 200);
+
+        when(rabbitTemplate.execute(any())).thenAnswer(invocation -> {
+            ChannelCallback<?> callback = invocation.getArgument(0);
+            return callback.doInRabbit(channel);
+        });
+        when(channel.messageCount("asset.parking-lot")).thenAnswer(invocation -> (long) parkingLot.size());
+        when(channel.basicGet("asset.parking-lot", false)).thenAnswer(invocation -> parkingLot.poll());
+        doAnswer(invocation -> {
+            if(((AssetMessage) invocation.getArgument(0)).getUid().startsWith("poison"))
+                throw new IllegalStateException("still poison");
+            return null;
+        }).when(assetSummaryService).processMessage(any());
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        parkingLotReplayer.destroy();
+        laneDispatcher.destroy();
+    }
+
+    @Test
+    void testReplayThroughProcessingPath() throws Exception {
+        for(int i = 0; i < 30; i++)
+            park(i % 10 == 0 ? "poison-" + i : "user-" + i);
+
+        parkingLotReplayer.start(8, 10_000.0, null);
+        ReplayStatus status = awaitFinished();
+
+        assertEquals(ReplayState.COMPLETED, status.getState());
+        assertEquals(30, status.getTotal());
+        assertEquals(30, status.getProcessed());
+        assertEquals(27, status.getSucceeded());
+        assertEquals(3, status.getFailed());
+        assertTrue(status.getThroughput() > 0);
+        assertNotNull(status.getFinishedAt());
+        verify(assetSummaryService, times(30)).processMessage(any());
+        verify(channel, times(30)).basicAck(anyLong(), eq(false));
+        assertEquals(27, meterRegistry.get("asset.replay.messages").tag("outcome", "success").counter().count());
+        assertEquals(3, meterRegistry.get("asset.replay.messages").tag("outcome", "failure").counter().count());
+
+        ArgumentCaptor<AMQP.BasicProperties> properties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        verify(channel, times(3)).basicPublish(eq(""), eq("asset.parking-lot"), properties.capture(), any(byte[].class));
+        Map<String, Object> headers = properties.getValue().getHeaders();
+        assertEquals("IllegalStateException: still poison", headers.get(RetryRouter.ERROR_HEADER));
+        assertEquals(3, headers.get(RetryRouter.ATTEMPT_HEADER));
+    }
+
+    @Test
+    void testLimitAndUndecodableMessage() throws Exception {
+        parkingLot.add(new GetResponse(new Envelope(1, false, "", "asset.parking-lot"),
+                new AMQP.BasicProperties.Builder().contentType("application/json").build(), "{".getBytes(), 0));
+        for(int i = 0; i < 5; i++)
+            park("user-" + i);
+
+        parkingLotReplayer.start(2, 10_000.0, 3L);
+        ReplayStatus status = awaitFinished();
+
+        assertEquals(3, status.getTotal());
+        assertEquals(2, status.getSucceeded());
+        assertEquals(1, status.getFailed());
+        assertEquals(3, parkingLot.size());
+        verify(assetSummaryService, times(2)).processMessage(any());
+    }
+
+    @Test
+    void testRateLimited() throws Exception {
+        for(int i = 0; i < 20; i++)
+            park("user-" + i);
+
+        long begin = System.nanoTime();
+        parkingLotReplayer.start(5, 50.0, null);
+        ReplayStatus status = awaitFinished();
+
+        assertEquals(20, status.getSucceeded());
+        assertTrue(System.nanoTime() - begin >= TimeUnit.MILLISECONDS.toNanos(290), "replay was not rate limited");
+        assertTrue(status.getThroughput() < 100, "throughput " + status.getThroughput());
+    }
+
+    @Test
+    void testSingleReplayAtATime() throws Exception {
+        for(int i = 0; i < 20; i++)
+            park("user-" + i);
+
+        parkingLotReplayer.start(1, 20.0, null);
+        assertEquals("0218", assertThrows(GlobalException.class, () -> parkingLotReplayer.start(null, null, null)).getCode());
+
+        assertEquals(ReplayState.RUNNING, parkingLotReplayer.stop().getState());
+        ReplayStatus status = awaitFinished();
+        assertEquals(ReplayState.STOPPED, status.getState());
+        assertTrue(status.getProcessed() < 20);
+    }
+
+    @Test
+    void testInvalidRequest() {
+        assertEquals("0219", assertThrows(GlobalException.class, () -> parkingLotReplayer.status()).getCode());
+        assertEquals("0210", assertThrows(GlobalException.class, () -> parkingLotReplayer.start(0, null, null)).getCode());
+        assertEquals("0210", assertThrows(GlobalException.class, () -> parkingLotReplayer.start(null, -1.0, null)).getCode());
+        assertEquals("0210", assertThrows(GlobalException.class, () -> parkingLotReplayer.start(null, null, 0L)).getCode());
+    }
+
+    private ReplayStatus awaitFinished() throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        ReplayStatus status;
+        while((status = parkingLotReplayer.status()).getState() == ReplayState.RUNNING) {
+            assertTrue(System.nanoTime() < deadline, "replay did not finish");
+            Thread.sleep(10);
+        }
+        return status;
+    }
+
+    private void park(String uid) {
+
+        MessageProperties messageProperties = new MessageProperties();
+        byte[] body = messageConverter.toMessage(AssetMessage.builder().uid(uid).build(), messageProperties).getBody();
+        AMQP.BasicProperties properties = new AMQP.BasicProperties.Builder()
+                .contentType(messageProperties.getContentType())
+                .headers(Map.of(RetryRouter.ATTEMPT_HEADER, 3))
+                .build();
+        parkingLot.add(new GetResponse(new Envelope(parkingLot.size() + 1, false, "", "asset.parking-lot"), properties, body, 0));
+    }
+}
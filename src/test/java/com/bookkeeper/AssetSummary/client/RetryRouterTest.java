@@ -0,0 +1,230 @@
+package com.bookkeeper.AssetSummary.client;
+
+import com.bookkeeper.AssetSummary.config.RetryTopology;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.service.AssetSummaryService;
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RetryRouterTest {
+
+    private static final int HEALTHY = 2_000;
+
+    private static final int POISON = 200;
+
+    private final RetryTopology retryTopology = new RetryTopology("asset",
+            List.of(Duration.ofMillis(20), Duration.ofMillis(50), Duration.ofMillis(100)));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AssetSummaryService assetSummaryService = mock(AssetSummaryService.class);
+
+    private final LaneDispatcher laneDispatcher = new LaneDispatcher(4, meterRegistry);
+
+    private StandInBroker broker;
+
+    private DirectReceiver directReceiver;
+
+    private final AtomicInteger healthyProcessed = new AtomicInteger();
+
+    private final AtomicInteger poisonAttempts = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        broker = new StandInBroker(retryTopology);
+        directReceiver = new DirectReceiver();
+        directReceiver.assetSummaryService = assetSummaryService;
+        directReceiver.laneDispatcher = laneDispatcher;
+        directReceiver.retryRouter = new RetryRouter(broker.template, retryTopology, meterRegistry);
+
+        doAnswer(invocation -> {
+            AssetMessage message = invocation.getArgument(0);
+            if(message.getUid().startsWith("poison")) {
+                poisonAttempts.incrementAndGet();
+                throw new IllegalStateException("poison");
+            }
+            LockSupport.parkNanos(200_000);
+            healthyProcessed.incrementAndGet();
+            return null;
+        }).when(assetSummaryService).processMessage(any());
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        broker.close();
+        laneDispatcher.destroy();
+    }
+
+    @Test
+    void testRetriesThenParks() throws Exception {
+        broker.publish(message("poison-1"));
+        broker.consume(directReceiver);
+
+        StandInBroker.Delivery parked = broker.parked.poll(5, TimeUnit.SECONDS);
+        assertNotNull(parked);
+        assertEquals(retryTopology.maxRetries(), parked.attempt());
+        assertEquals("IllegalStateException: poison", parked.error());
+        assertEquals(List.of(retryTopology.retryQueue(1), retryTopology.retryQueue(2), retryTopology.retryQueue(3)), broker.retryRoutes);
+        verify(assetSummaryService, timeout(1000).times(4)).processMessage(any());
+        verify(broker.channel, timeout(1000).times(4)).basicAck(anyLong(), eq(false));
+        verify(broker.channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        assertEquals(3, meterRegistry.get("asset.mq.retry").counter().count());
+        assertEquals(1, meterRegistry.get("asset.mq.parked").counter().count());
+    }
+
+    @Test
+    void testRetriedMessageSucceeds() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if(calls.incrementAndGet() == 1)
+                throw new IllegalStateException("transient");
+            return null;
+        }).when(assetSummaryService).processMessage(any());
+
+        broker.publish(message("user-1"));
+        broker.consume(directReceiver);
+
+        verify(assetSummaryService, timeout(5000).times(2)).processMessage(any());
+        verify(broker.channel, timeout(1000).times(2)).basicAck(anyLong(), eq(false));
+        assertEquals(List.of(retryTopology.retryQueue(1)), broker.retryRoutes);
+        assertTrue(broker.parked.isEmpty());
+    }
+
+    @Test
+    void testRepublishFailureIsNackedWithoutRequeue() throws Exception {
+        doThrow(new IllegalStateException("poison")).when(assetSummaryService).processMessage(any());
+        doThrow(new org.springframework.amqp.AmqpConnectException(new java.net.ConnectException()))
+                .when(broker.template).convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class));
+
+        broker.publish(message("poison-1"));
+        broker.consume(directReceiver);
+
+        verify(broker.channel, timeout(5000)).basicNack(anyLong(), eq(false), eq(false));
+        verify(broker.channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    /**
+     * A failed message costs its lane one attempt and then waits in a retry queue instead of on a consumer thread,
+     * so every healthy message queued behind the poison ones is processed while each poison message is still
+     * waiting for its first retry. With the former in-thread back-off every poison message held its lane for the
+     * whole retry schedule.
+     */
+    @Test
+    void testHealthyMessagesAreNotHeldBehindPoisonMessages() throws Exception {
+        RetryTopology slowRetries = new RetryTopology("asset", List.of(Duration.ofMinutes(1)));
+        broker.close();
+        broker = new StandInBroker(slowRetries);
+        directReceiver.retryRouter = new RetryRouter(broker.template, slowRetries, meterRegistry);
+
+        for(int i = 0; i < POISON; i++)
+            broker.publish(message("poison-" + i));
+        for(int i = 0; i < HEALTHY; i++)
+            broker.publish(message("user-" + (i % 64)));
+        broker.consume(directReceiver);
+
+        verify(broker.channel, timeout(30_000).times(HEALTHY + POISON)).basicAck(anyLong(), eq(false));
+        assertEquals(HEALTHY, healthyProcessed.get());
+        assertEquals(POISON, poisonAttempts.get());
+        assertEquals(POISON, broker.retryRoutes.size());
+        assertTrue(broker.parked.isEmpty());
+    }
+
+    private static AssetMessage message(String uid) {
+        return AssetMessage.builder().uid(uid).build();
+    }
+
+    /**
+     * Just enough of a broker for the retry topology: the asset queue, one TTL queue per delay that dead-letters
+     * back onto the asset queue, and the parking lot. A single consumer thread feeds the listener, as the
+     * container does.
+     */
+    private static final class StandInBroker {
+
+        record Delivery(AssetMessage message, Integer attempt, String error) {
+        }
+
+        final AmqpTemplate template = mock(AmqpTemplate.class);
+
+        final Channel channel = mock(Channel.class);
+
+        final BlockingQueue<Delivery> queue = new LinkedBlockingQueue<>();
+
+        final BlockingQueue<Delivery> parked = new LinkedBlockingQueue<>();
+
+        final List<String> retryRoutes = Collections.synchronizedList(new ArrayList<>());
+
+        private final ScheduledExecutorService ttl = Executors.newSingleThreadScheduledExecutor();
+
+        private final AtomicLong deliveryTags = new AtomicLong();
+
+        private volatile Thread consumer;
+
+        StandInBroker(RetryTopology retryTopology) {
+            doAnswer(invocation -> {
+                String routingKey = invocation.getArgument(1);
+                MessagePostProcessor postProcessor = invocation.getArgument(3);
+                MessageProperties properties = postProcessor.postProcessMessage(new Message(new byte[0], new MessageProperties()))
+                        .getMessageProperties();
+                Delivery delivery = new Delivery(invocation.getArgument(2), properties.getHeader(RetryRouter.ATTEMPT_HEADER),
+                        properties.getHeader(RetryRouter.ERROR_HEADER));
+
+                if(routingKey.equals(retryTopology.parkingLot())) {
+                    parked.add(delivery);
+                    return null;
+                }
+                retryRoutes.add(routingKey);
+                for(int attempt = 1; attempt <= retryTopology.maxRetries(); attempt++) {
+                    if(routingKey.equals(retryTopology.retryQueue(attempt)))
+                        ttl.schedule(() -> queue.add(delivery), retryTopology.delays().get(attempt - 1).toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return null;
+            }).when(template).convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class));
+        }
+
+        void publish(AssetMessage message) {
+            queue.add(new Delivery(message, null, null));
+        }
+
+        void consume(DirectReceiver receiver) {
+            consumer = new Thread(() -> {
+                try {
+                    while(!Thread.currentThread().isInterrupted()) {
+                        Delivery delivery = queue.take();
+                        receiver.process(delivery.message(), channel, deliveryTags.incrementAndGet(), delivery.attempt());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "stand-in-consumer");
+            consumer.start();
+        }
+
+        void close() throws InterruptedException {
+            ttl.shutdownNow();
+            if(consumer != null) {
+                consumer.interrupt();
+                consumer.join(5000);
+            }
+        }
+    }
+}
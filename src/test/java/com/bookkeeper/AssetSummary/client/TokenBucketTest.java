@@ -0,0 +1,57 @@
+package com.bookkeeper.AssetSummary.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private long now = 0;
+
+    @Test
+    void testBurstUpToCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(10, 5, () -> now);
+
+        for(int i = 0; i < 5; i++)
+            assertEquals(0, tokenBucket.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), tokenBucket.tryAcquire());
+
+        now += TimeUnit.MILLISECONDS.toNanos(100);
+        assertEquals(0, tokenBucket.tryAcquire());
+    }
+
+    @Test
+    void testIdleTimeDoesNotExceedCapacity() {
+        TokenBucket tokenBucket = new TokenBucket(10, 5, () -> now);
+
+        now += TimeUnit.HOURS.toNanos(1);
+        for(int i = 0; i < 5; i++)
+            assertEquals(0, tokenBucket.tryAcquire());
+        assertTrue(tokenBucket.tryAcquire() > 0);
+    }
+
+    /**
+     * Over a long run the bucket hands out the rate plus the initial burst, however the waits are spread.
+     */
+    @Test
+    void testSustainedRate() {
+        TokenBucket tokenBucket = new TokenBucket(250, 50, () -> now);
+
+        for(int i = 0; i < 10_000; i++) {
+            long wait;
+            while((wait = tokenBucket.tryAcquire()) > 0)
+                now += wait;
+        }
+
+        double seconds = now / 1e9;
+        assertEquals((10_000 - 50) / 250.0, seconds, 0.01);
+    }
+
+    @Test
+    void testInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0));
+    }
+}
@@ -0,0 +1,95 @@
+package com.bookkeeper.AssetSummary.config;
+
+import com.bookkeeper.AssetSummary.model.dto.PaymentDTO;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode cost of one payment message. {@code rawMap} is the path the listeners used to take: the converter builds a
+ * {@code HashMap} from the publisher's {@code __TypeId__} and the service then converts the record with an
+ * {@code ObjectMapper} built for that message. {@code typed} is the shared converter reading straight into
+ * {@link AssetMessage}. Run {@link #main} for time per message and, through the GC profiler, bytes per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageDecodeBenchmark {
+
+    private static final String BODY = """
+            {"uid":"sdg3258rgdsjhgbj32dfgf8865","email":"test@gmail.com",
+             "request_record":{"uuid":"6f1c2a7e-3b8d-4a52-9f0e-1d2c3b4a5e6f","description":"test","category":"Food",
+             "paymentMethod":"FPS","date":"2023-10-01","amount":100.5,"currency":"HKD","paymentFrom":"Bank",
+             "paymentTo":"Shop"}}
+            """;
+
+    private MessageConverter rawMapConverter;
+
+    private MessageConverter typedConverter;
+
+    private Message rawMapMessage;
+
+    private Message typedMessage;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.registerModule(new JavaTimeModule());
+        rawMapConverter = new Jackson2JsonMessageConverter(objectMapper);
+        typedConverter = new RabbitConfig().jacksonConverter();
+
+        rawMapMessage = message(HashMap.class);
+        typedMessage = message(AssetMessage.class);
+    }
+
+    @Benchmark
+    public PaymentDTO rawMap() {
+        HashMap<?, ?> decoded = (HashMap<?, ?>) rawMapConverter.fromMessage(rawMapMessage);
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper.convertValue(decoded.get("request_record"), PaymentDTO.class);
+    }
+
+    @Benchmark
+    public PaymentDTO typed() {
+        return ((AssetMessage) typedConverter.fromMessage(typedMessage)).getRequestRecord();
+    }
+
+    private static Message message(Class<?> listenerParameter) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setHeader("__TypeId__", "java.util.HashMap");
+        properties.setInferredArgumentType(listenerParameter);
+        return new Message(BODY.getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MessageDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
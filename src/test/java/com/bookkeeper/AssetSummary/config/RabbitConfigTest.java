@@ -0,0 +1,84 @@
+package com.bookkeeper.AssetSummary.config;
+
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.model.message.MessageAction;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RabbitConfigTest {
+
+    private final MessageConverter converter = new RabbitConfig().jacksonConverter();
+
+    @Test
+    void testLegacyPaymentMessageDecodesToTypedMessage() {
+        String body = """
+                {"uid":"sdg3258rgdsjhgbj32dfgf8865","email":"test@gmail.com",
+                 "request_record":{"uuid":"6f1c2a7e-3b8d-4a52-9f0e-1d2c3b4a5e6f","description":"test","category":"Food",
+                 "paymentMethod":"FPS","date":"2023-10-01","amount":100.5,"currency":"HKD","paymentFrom":"Bank",
+                 "paymentTo":"Shop","unknownField":"ignored"}}
+                """;
+
+        AssetMessage message = decode(body);
+
+        assertEquals(MessageAction.PAYMENT, message.getAction());
+        assertTrue(message.getVersion() <= AssetMessage.CURRENT_VERSION);
+        assertEquals("sdg3258rgdsjhgbj32dfgf8865", message.getUid());
+        assertEquals(100.5, message.getRequestRecord().getAmount());
+        assertEquals(LocalDate.of(2023, 10, 1), message.getRequestRecord().getDate());
+        assertEquals("6f1c2a7e-3b8d-4a52-9f0e-1d2c3b4a5e6f", message.getMessageKey().toString());
+    }
+
+    @Test
+    void testReverseAndCancelMessages() {
+        String reverse = """
+                {"version":1,"uid":"u","request_record":{"amount":10,"paymentFrom":"Bank","paymentTo":"Shop"},
+                 "reverse_record":{"amount":5,"paymentFrom":"Shop","paymentTo":"Bank"}}
+                """;
+        String cancel = """
+                {"uid":"u","cancel":{"amount":10,"paymentFrom":"Bank","paymentTo":"Shop"}}
+                """;
+
+        assertEquals(MessageAction.REVERSE, decode(reverse).getAction());
+        assertEquals(MessageAction.CANCEL, decode(cancel).getAction());
+    }
+
+    @Test
+    void testEditIsKeyedByMessageIdOnly() {
+        String edit = """
+                {%s"uid":"u","request_record":{"uuid":"6f1c2a7e-3b8d-4a52-9f0e-1d2c3b4a5e6f","amount":20,"paymentFrom":"Bank","paymentTo":"Shop"},
+                 "reverse_record":{"uuid":"6f1c2a7e-3b8d-4a52-9f0e-1d2c3b4a5e6f","amount":10,"paymentFrom":"Shop","paymentTo":"Bank"}}
+                """;
+
+        AssetMessage first = decode(edit.formatted("\"message_id\":\"0b7d1e52-95c4-4f0e-8a3b-2c6d9e1f4a70\","));
+        AssetMessage repeated = decode(edit.formatted("\"message_id\":\"5e2a9c13-7f4b-4d86-b1e0-93c8d2a6f517\","));
+
+        assertNotEquals(first.getMessageKey(), repeated.getMessageKey());
+        assertEquals(first.getPaymentRecord().getUuid(), repeated.getPaymentRecord().getUuid());
+        assertNull(decode(edit.formatted("")).getMessageKey());
+    }
+
+    @Test
+    void testMessageIdIsTheKey() {
+        String body = """
+                {"message_id":"0b7d1e52-95c4-4f0e-8a3b-2c6d9e1f4a70","uid":"u",
+                 "request_record":{"uuid":"6f1c2a7e-3b8d-4a52-9f0e-1d2c3b4a5e6f","amount":10,"paymentFrom":"Bank","paymentTo":"Shop"}}
+                """;
+
+        assertEquals("0b7d1e52-95c4-4f0e-8a3b-2c6d9e1f4a70", decode(body).getMessageKey().toString());
+    }
+
+    private AssetMessage decode(String body) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setHeader("__TypeId__", "java.util.HashMap");
+        properties.setInferredArgumentType(AssetMessage.class);
+        return (AssetMessage) converter.fromMessage(new Message(body.getBytes(StandardCharsets.UTF_8), properties));
+    }
+}
@@ -0,0 +1,36 @@
+package com.bookkeeper.AssetSummary.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaLagMonitorTest {
+
+    private final Instant now = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Test
+    void testDisconnectedReplicaLagsFromLastCaughtUpProbe() {
+        Instant caughtUpAt = now.minusSeconds(30);
+        Instant replayed = now.minus(Duration.ofHours(2));
+
+        assertEquals(Duration.ofSeconds(30), ReplicaLagMonitor.lag(now, caughtUpAt, replayed));
+    }
+
+    @Test
+    void testBusyReplicaLagsFromLastReplayedCommit() {
+        Instant caughtUpAt = now.minusSeconds(30);
+        Instant replayed = now.minusMillis(200);
+
+        assertEquals(Duration.ofMillis(200), ReplicaLagMonitor.lag(now, caughtUpAt, replayed));
+        assertEquals(Duration.ofMillis(200), ReplicaLagMonitor.lag(now, null, replayed));
+    }
+
+    @Test
+    void testUnknownLag() {
+        assertNull(ReplicaLagMonitor.lag(now, null, null));
+        assertEquals(Duration.ZERO, ReplicaLagMonitor.lag(now, now.plusMillis(5), null));
+    }
+}
@@ -0,0 +1,182 @@
+package com.bookkeeper.AssetSummary.config;
+
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import com.bookkeeper.AssetSummary.repository.AssetRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against two independent PostgreSQL instances standing in for a primary and its replica. Rows are seeded into
+ * one instance only, so which one answered a query shows where it was routed.
+ */
+@DataJpaTest(properties = "asset.replica.max-lag=1s")
+@Import({ReplicaDataSourceConfig.class, ReplicaRouting.class, ReplicaLagMonitor.class, ReplicaRoutingTest.Metrics.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("asset.replica.url", replica::getJdbcUrl);
+        registry.add("asset.replica.username", replica::getUsername);
+        registry.add("asset.replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String uid = UUID.randomUUID().toString();
+
+    @BeforeEach
+    public void setUp() {
+        new JdbcTemplate(replicaDataSource()).update(
+                "INSERT INTO asset (uid, email, name, type, balance, color) VALUES (?, 'test@gmail.com', 'Bank', 'bank', 100, 'Purple')", uid);
+        replicaLagMonitor.probe();
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplica() {
+        assertTrue(read(uid), "read-only transaction should see the replica row");
+        Boolean empty = transactionTemplate(false).execute(status -> assetRepository.findByNameAndUID("Bank", uid).isEmpty());
+        assertTrue(empty, "read-write transaction should use the primary");
+    }
+
+    @Test
+    void testWritesGoToPrimary() {
+        String writer = UUID.randomUUID().toString();
+        transactionTemplate(false).executeWithoutResult(status -> assetRepository.save(asset(writer)));
+
+        assertEquals(1, new JdbcTemplate(primaryDataSource()).queryForObject("SELECT count(*) FROM asset WHERE uid = ?", Long.class, writer));
+        assertEquals(0, new JdbcTemplate(replicaDataSource()).queryForObject("SELECT count(*) FROM asset WHERE uid = ?", Long.class, writer));
+    }
+
+    @Test
+    void testRecentWriterReadsFromPrimary() {
+        replicaRouting.recordWrite(uid);
+
+        assertFalse(read(uid), "a recent writer should read from the primary");
+        assertTrue(read(null), "other readers should still use the replica");
+    }
+
+    @Test
+    void testUnknownReaderReadsFromPrimary() {
+        Boolean found = transactionTemplate(true).execute(status -> {
+            replicaRouting.readFromPrimary();
+            return assetRepository.findByNameAndUID("Bank", uid).isPresent();
+        });
+
+        assertFalse(found, "a reader without uid should read from the primary");
+        assertTrue(read(null), "the next transaction should use the replica again");
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        replicaRouting.updateLag(Duration.ofSeconds(5));
+        assertFalse(read(uid));
+
+        replicaRouting.updateLag(null);
+        assertFalse(read(uid));
+
+        replicaLagMonitor.probe();
+        assertTrue(read(uid));
+    }
+
+    private boolean read(String reader) {
+        return transactionTemplate(true).execute(status -> {
+            replicaRouting.readFor(reader);
+            return assetRepository.findByNameAndUID("Bank", uid).isPresent();
+        });
+    }
+
+    private TransactionTemplate transactionTemplate(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate;
+    }
+
+    private Asset asset(String owner) {
+        Asset asset = new Asset();
+        asset.setUID(owner);
+        asset.setEmail("test@gmail.com");
+        asset.setName("Bank");
+        asset.setType("bank");
+        asset.setBalance(100);
+        asset.setColor("Purple");
+        return asset;
+    }
+
+    private static DataSource primaryDataSource() {
+        return dataSource(primary);
+    }
+
+    private static DataSource replicaDataSource() {
+        return dataSource(replica);
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> container) {
+        return new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
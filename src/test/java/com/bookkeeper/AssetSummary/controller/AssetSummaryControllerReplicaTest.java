@@ -0,0 +1,156 @@
+package com.bookkeeper.AssetSummary.controller;
+
+import com.bookkeeper.AssetSummary.config.ReplicaDataSourceConfig;
+import com.bookkeeper.AssetSummary.config.ReplicaLagMonitor;
+import com.bookkeeper.AssetSummary.config.ReplicaRouting;
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import com.bookkeeper.AssetSummary.model.mapper.AssetMapper;
+import com.bookkeeper.AssetSummary.repository.*;
+import com.bookkeeper.AssetSummary.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Drives the web layer, the service and JPA against two independent PostgreSQL instances standing in for a primary
+ * and its replica, so a request that would run its write on the replica connection fails here.
+ */
+@WebMvcTest(AssetSummaryController.class)
+@AutoConfigureDataJpa
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AssetSummaryService.class, AssetMapper.class, AssetCache.class, FxRateTable.class,
+        OptimisticRetry.class, AssetJdbcRepository.class, AssetVersionRepository.class, AssetLedgerRepository.class,
+        AssetHistoryRepository.class, UserSummaryRepository.class, ProcessedMessageRepository.class, FxRateRepository.class,
+        ReplicaDataSourceConfig.class, ReplicaRouting.class, ReplicaLagMonitor.class, AssetSummaryControllerReplicaTest.Metrics.class})
+@Testcontainers(disabledWithoutDocker = true)
+class AssetSummaryControllerReplicaTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("asset.replica.url", replica::getJdbcUrl);
+        registry.add("asset.replica.username", replica::getUsername);
+        registry.add("asset.replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ObjectProvider<OpenEntityManagerInViewInterceptor> openEntityManagerInViewInterceptor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String uid = UUID.randomUUID().toString();
+
+    private final String email = "test@gmail.com";
+
+    @BeforeEach
+    public void setUp() {
+        replicaLagMonitor.probe();
+    }
+
+    @Test
+    void testOpenInViewIsOff() {
+        assertNull(openEntityManagerInViewInterceptor.getIfAvailable());
+    }
+
+    @Test
+    void testCreateWritesToPrimary() throws Exception {
+        mvc.perform(post("/api/v1/asset")
+                        .header("user-uid", uid)
+                        .header("user-email", email)
+                        .content(objectMapper.writeValueAsString(new AssetDTO("Bank", "bank", 100.0, "Purple")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("SUCCESS"));
+
+        assertEquals(1, count(primary, uid));
+        assertEquals(0, count(replica, uid));
+
+        mvc.perform(get("/api/v1/asset")
+                        .header("user-uid", uid)
+                        .header("user-email", email))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.asset[0].name").value("Bank"));
+    }
+
+    @Test
+    void testOtherUsersReadFromReplica() throws Exception {
+        String reader = UUID.randomUUID().toString();
+        new JdbcTemplate(dataSource(replica)).update(
+                "INSERT INTO asset (uid, email, name, type, balance, color) VALUES (?, ?, 'Savings', 'bank', 100, 'Green')", reader, email);
+
+        mvc.perform(get("/api/v1/asset")
+                        .header("user-uid", reader)
+                        .header("user-email", email))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.asset[0].name").value("Savings"));
+    }
+
+    private long count(PostgreSQLContainer<?> container, String owner) {
+        return new JdbcTemplate(dataSource(container)).queryForObject("SELECT count(*) FROM asset WHERE uid = ?", Long.class, owner);
+    }
+
+    private static DriverManagerDataSource dataSource(PostgreSQLContainer<?> container) {
+        return new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -10,16 +10,20 @@ import com.bookkeeper.AssetSummary.service.AssetSummaryService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -31,6 +35,8 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AssetSummaryController.class)
@@ -48,6 +54,12 @@ class AssetSummaryControllerTest {
     @MockBean
     private AssetMapper assetMapper;
 
+    @BeforeEach
+    public void setup() {
+        when(assetSummaryService.getAssetVersionByName(any(), any())).thenReturn(AssetRowVersion.NONE);
+        when(assetSummaryService.getAssetVersion(any())).thenReturn(AssetVersion.INITIAL);
+    }
+
     @Test
     void testCreateAssetSuccess() throws Exception {
         ObjectMapper mapper = new ObjectMapper();
@@ -292,6 +304,20 @@ class AssetSummaryControllerTest {
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    void testGetSingleAssetPassesReader() throws Exception {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        when(assetSummaryService.getAssetByName(uid, "Bank")).thenReturn(new AssetDTO("Bank", "bank", 10000.0, "Purple"));
+
+        mvc.perform(get("/api/v1/asset/single")
+                        .param("assetName", "Bank")
+                        .header("user-uid", uid))
+                .andExpect(status().isOk());
+
+        verify(assetSummaryService).getAssetVersionByName(uid, "Bank");
+        verify(assetSummaryService).getAssetByName(uid, "Bank");
+    }
+
     @Test
     void testGetSingleAssetByAssetNameValidation() throws Exception {
         mvc.perform(
@@ -313,7 +339,7 @@ class AssetSummaryControllerTest {
                 .status("SUCCESS")
                 .requestTime(LocalDateTime.now().withNano(0))
                 .build();
-        when(assetSummaryService.getAssetByName(assetName)).thenReturn(assetDTO);
+        when(assetSummaryService.getAssetByName(null, assetName)).thenReturn(assetDTO);
         MvcResult mvcResult = mvc.perform(
                 get("/api/v1/asset/single")
                 .param(("assetName"), assetName))
@@ -327,7 +353,7 @@ class AssetSummaryControllerTest {
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         String assetName = "Bank";
-        when(assetSummaryService.getAssetByName(assetName)).thenThrow(new AssetNotFound("0031", "Asset Not Found in given record"));
+        when(assetSummaryService.getAssetByName(null, assetName)).thenThrow(new AssetNotFound("0031", "Asset Not Found in given record"));
         MvcResult mvcResult = mvc.perform(
                         get("/api/v1/asset/single")
                                 .param(("assetName"), assetName)
@@ -367,7 +393,7 @@ class AssetSummaryControllerTest {
                 .requestTime(LocalDateTime.now().withNano(0))
                 .build();
 
-        when(assetSummaryService.getAsset(uid, email)).thenReturn(assetDTOList);
+        when(assetSummaryService.getAsset(uid, email, AssetVersion.INITIAL)).thenReturn(new VersionedAssets(AssetVersion.INITIAL, assetDTOList));
 
         MvcResult mvcResult = mvc.perform(
                         get("/api/v1/asset")
@@ -426,7 +452,7 @@ class AssetSummaryControllerTest {
         String uid = "sdg3258rgdsjhgbj32dfgf8865";
         String email = "test@gmail.com";
 
-        when(assetSummaryService.getAsset(uid, email)).thenThrow(new AssetNotFound("0050", "No Assets found"));
+        when(assetSummaryService.getAsset(uid, email, AssetVersion.INITIAL)).thenThrow(new AssetNotFound("0050", "No Assets found"));
 
         MvcResult mvcResult = mvc.perform(
                         get("/api/v1/asset")
@@ -598,4 +624,126 @@ class AssetSummaryControllerTest {
         String expectedResponseBody = objectMapper.writeValueAsString(expectedResponse);
         assertThat(actualResponseBody).isEqualToIgnoringWhitespace(expectedResponseBody);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUpdateAssetsResponse() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        String email = "test@gmail.com";
+        PaymentDTO paymentDTO = PaymentDTO.builder()
+                .amount(100)
+                .currency("HKD")
+                .date(LocalDate.now())
+                .category("Food")
+                .description("Lunch")
+                .paymentFrom("Bank")
+                .paymentTo("Friend")
+                .paymentMethod("FPS")
+                .build();
+        List<PaymentDTO> requests = List.of(paymentDTO, paymentDTO);
+        List<PaymentResult> results = List.of(
+                PaymentResult.success(0, paymentDTO),
+                PaymentResult.failed(1, paymentDTO, "0202", "Asset Not Found in given record"));
+
+        when(assetSummaryService.updateAssets(uid, requests)).thenReturn(results);
+
+        MvcResult mvcResult = mvc.perform(put("/api/v1/asset/bulk")
+                        .header("user-uid", uid)
+                        .header("user-email", email)
+                        .content(objectMapper.writeValueAsString(requests))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn();
+
+        BulkPaymentResponse expectedResponse = BulkPaymentResponse.builder()
+                .results(results)
+                .status("PARTIAL")
+                .requestTime(LocalDateTime.now().withNano(0))
+                .build();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualToIgnoringWhitespace(objectMapper.writeValueAsString(expectedResponse));
+    }
+
+    @Test
+    void testExportAsset() throws Exception {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        String email = "test@gmail.com";
+
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"name\":\"Bank\",\"type\":\"bank\",\"balance\":10000.0,\"color\":\"Purple\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(assetSummaryService).exportAssets(eq(uid), any(OutputStream.class));
+
+        MvcResult mvcResult = mvc.perform(get("/api/v1/asset/export")
+                        .header("user-uid", uid)
+                        .header("user-email", email))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"name\":\"Bank\",\"type\":\"bank\",\"balance\":10000.0,\"color\":\"Purple\"}\n"));
+    }
+
+    @Test
+    void testGetAssetNotModified() throws Exception {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        String email = "test@gmail.com";
+        LocalDateTime updatedDate = LocalDateTime.now().withNano(0);
+
+        AssetVersion version = new AssetVersion(7, updatedDate);
+        when(assetSummaryService.getAssetVersion(uid)).thenReturn(version);
+        when(assetSummaryService.getAsset(uid, email, version)).thenReturn(new VersionedAssets(version,
+                List.of(new AssetDTO("Bank", "bank", 10000.0, "Purple"))));
+
+        mvc.perform(get("/api/v1/asset")
+                        .header("user-uid", uid)
+                        .header("user-email", email))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+
+        mvc.perform(get("/api/v1/asset")
+                        .header("user-uid", uid)
+                        .header("user-email", email)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(assetSummaryService, times(2)).getAssetVersion(uid);
+        verify(assetSummaryService, times(1)).getAsset(uid, email, version);
+    }
+
+    @Test
+    void testGetAssetNotModifiedLoadsNoAssets() throws Exception {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        when(assetSummaryService.getAssetVersion(uid)).thenReturn(new AssetVersion(7, LocalDateTime.now().withNano(0)));
+
+        mvc.perform(get("/api/v1/asset")
+                        .header("user-uid", uid)
+                        .header("user-email", "test@gmail.com")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified());
+
+        verify(assetSummaryService, never()).getAsset(any(), any(), any());
+    }
+
+    @Test
+    void testGetSingleAssetNotModified() throws Exception {
+        when(assetSummaryService.getAssetVersionByName(null, "Bank")).thenReturn(new AssetRowVersion(12, 3, LocalDateTime.now().withNano(0)));
+
+        mvc.perform(get("/api/v1/asset/single")
+                        .param("assetName", "Bank")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"12-3\""))
+                .andExpect(status().isNotModified());
+
+        verify(assetSummaryService, never()).getAssetByName(any(), any());
+    }
+}
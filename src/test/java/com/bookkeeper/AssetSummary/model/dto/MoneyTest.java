@@ -0,0 +1,47 @@
+package com.bookkeeper.AssetSummary.model.dto;
+
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testScaleFollowsCurrency() {
+        assertEquals(2, Money.scale("HKD"));
+        assertEquals(0, Money.scale("JPY"));
+        assertEquals(3, Money.scale("KWD"));
+        assertEquals(2, Money.scale(null));
+        assertEquals("0210", assertThrows(GlobalException.class, () -> Money.scale("XXXX")).getCode());
+    }
+
+    @Test
+    void testConversion() {
+        assertEquals(1234L, Money.toMinor(12.34, "HKD"));
+        assertEquals(-50050L, Money.toMinor(-500.5, "HKD"));
+        assertEquals(1235L, Money.toMinor(1234.5, "JPY"));
+        assertEquals(12.34, Money.toMajor(1234L, "HKD"));
+        assertEquals(1.234, Money.toMajor(1234L, "KWD"));
+        assertEquals("0210", assertThrows(GlobalException.class, () -> Money.toMinor(1e17, "HKD")).getCode());
+        assertEquals("0210", assertThrows(GlobalException.class, () -> Money.toMinor(Double.NaN, "HKD")).getCode());
+    }
+
+    /**
+     * Every amount with at most two decimals survives the trip through minor units unchanged.
+     */
+    @Test
+    void testRoundTripIsExact() {
+        Random random = new Random(19);
+        for(int i = 0; i < 100_000; i++) {
+            long minor = random.nextLong() % 100_000_000_000L;
+            double major = new BigDecimal(minor).movePointLeft(2).doubleValue();
+
+            assertEquals(minor, Money.toMinor(major, "HKD"));
+            assertEquals(major, Money.toMajor(minor, "HKD"));
+        }
+    }
+}
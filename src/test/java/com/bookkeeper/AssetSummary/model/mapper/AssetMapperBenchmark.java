@@ -0,0 +1,140 @@
+package com.bookkeeper.AssetSummary.model.mapper;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import com.bookkeeper.AssetSummary.model.dto.Money;
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.BeanUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link AssetMapper} against the reflective mapping it replaced: {@code BeanUtils.copyProperties} per item, and
+ * lists streamed into one list and copied into a second. Balances are converted by hand in the reflective variants
+ * as well, since the copy skips the long to Double field. Single conversions run once; list conversions at 1, 100
+ * and 10k items. Run {@link #main} for time per conversion and, through the GC profiler, bytes per conversion.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssetMapperBenchmark {
+
+    @State(Scope.Thread)
+    public static class Single {
+
+        private final AssetMapper assetMapper = new AssetMapper();
+
+        private Asset entity;
+
+        private AssetDTO dto;
+
+        @Setup
+        public void setUp() {
+            entity = asset(0);
+            dto = assetMapper.convertToDto(entity);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Lists {
+
+        private final AssetMapper assetMapper = new AssetMapper();
+
+        @Param({"1", "100", "10000"})
+        private int size;
+
+        private List<Asset> entities;
+
+        private List<AssetDTO> dtos;
+
+        @Setup
+        public void setUp() {
+            entities = new ArrayList<>(size);
+            for(int i = 0; i < size; i++)
+                entities.add(asset(i));
+            dtos = assetMapper.convertToDtoList(entities);
+        }
+    }
+
+    @Benchmark
+    public AssetDTO reflectiveToDto(Single state) {
+        return reflectiveToDto(state.entity);
+    }
+
+    @Benchmark
+    public AssetDTO explicitToDto(Single state) {
+        return state.assetMapper.convertToDto(state.entity);
+    }
+
+    @Benchmark
+    public Asset reflectiveToEntity(Single state) {
+        return reflectiveToEntity(state.dto);
+    }
+
+    @Benchmark
+    public Asset explicitToEntity(Single state) {
+        return state.assetMapper.convertToEntity(state.dto);
+    }
+
+    @Benchmark
+    public List<AssetDTO> reflectiveToDtoList(Lists state) {
+        return new ArrayList<>(state.entities.stream().map(AssetMapperBenchmark::reflectiveToDto).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<AssetDTO> explicitToDtoList(Lists state) {
+        return state.assetMapper.convertToDtoList(state.entities);
+    }
+
+    @Benchmark
+    public List<Asset> reflectiveToEntityList(Lists state) {
+        return new ArrayList<>(state.dtos.stream().map(AssetMapperBenchmark::reflectiveToEntity).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<Asset> explicitToEntityList(Lists state) {
+        return state.assetMapper.convertToEntityList(state.dtos);
+    }
+
+    private static AssetDTO reflectiveToDto(Asset entity) {
+        AssetDTO dto = new AssetDTO();
+        BeanUtils.copyProperties(entity, dto);
+        dto.setBalance(Money.toMajor(entity.getBalance(), entity.getCurrency()));
+        return dto;
+    }
+
+    private static Asset reflectiveToEntity(AssetDTO dto) {
+        Asset asset = new Asset();
+        BeanUtils.copyProperties(dto, asset);
+        asset.setBalance(Money.toMinor(dto.getBalance(), dto.getCurrency()));
+        return asset;
+    }
+
+    private static Asset asset(int i) {
+        Asset asset = new Asset();
+        asset.setUID("sdg3258rgdsjhgbj32dfgf8865");
+        asset.setEmail("test@gmail.com");
+        asset.setName("Asset " + i);
+        asset.setType("bank");
+        asset.setBalance(i * 100L);
+        asset.setColor("Purple");
+        asset.setCurrency("HKD");
+        return asset;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AssetMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
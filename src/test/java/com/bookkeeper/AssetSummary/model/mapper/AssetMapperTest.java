@@ -0,0 +1,67 @@
+package com.bookkeeper.AssetSummary.model.mapper;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetMapperTest {
+
+    private final AssetMapper assetMapper = new AssetMapper();
+
+    @Test
+    void testConvertToDtoConvertsMinorUnits() {
+        Asset asset = createAsset("Bank", 1000050);
+
+        assertEquals(new AssetDTO("Bank", "bank", 10000.5, "Purple"), assetMapper.convertToDto(asset));
+    }
+
+    @Test
+    void testConvertToEntityConvertsToMinorUnits() {
+        AssetDTO assetDTO = new AssetDTO("Bank", "bank", 10000.29, "Purple");
+
+        Asset asset = assetMapper.convertToEntity(assetDTO);
+
+        assertEquals("Bank", asset.getName());
+        assertEquals("bank", asset.getType());
+        assertEquals(1000029L, asset.getBalance());
+        assertEquals("Purple", asset.getColor());
+        assertNull(asset.getUID());
+    }
+
+    @Test
+    void testNullInput() {
+        assertEquals(new AssetDTO(), assetMapper.convertToDto((Asset) null));
+        assertNull(assetMapper.convertToEntity((AssetDTO) null).getName());
+    }
+
+    @Test
+    void testListConversionKeepsOrder() {
+        List<Asset> assets = new ArrayList<>();
+        for(int i = 0; i < 100; i++)
+            assets.add(createAsset("Asset " + i, i));
+
+        List<AssetDTO> dtos = assetMapper.convertToDtoList(assets);
+
+        assertEquals(100, dtos.size());
+        for(int i = 0; i < 100; i++)
+            assertEquals("Asset " + i, dtos.get(i).getName());
+        assertEquals(dtos, new ArrayList<>(assetMapper.convertToDto(assets)));
+        assertEquals(100, assetMapper.convertToEntityList(dtos).size());
+    }
+
+    private Asset createAsset(String name, long balance) {
+        Asset asset = new Asset();
+        asset.setUID("sdg3258rgdsjhgbj32dfgf8865");
+        asset.setEmail("test@gmail.com");
+        asset.setName(name);
+        asset.setType("bank");
+        asset.setBalance(balance);
+        asset.setColor("Purple");
+        return asset;
+    }
+}
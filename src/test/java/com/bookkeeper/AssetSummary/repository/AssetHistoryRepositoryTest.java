@@ -0,0 +1,114 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.HistoryBucket;
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AssetHistoryRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class AssetHistoryRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private AssetHistoryRepository assetHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testRecordDailyKeepsClosingBalance() {
+        Asset bank = seed("uid-1", "Bank", 10000);
+
+        assetHistoryRepository.recordDaily("uid-1", Set.of("Bank"));
+        jdbcTemplate.update("UPDATE asset SET balance = balance + 5000 WHERE id = ?", bank.getId());
+        assetHistoryRepository.recordDaily("uid-1", Set.of("Bank", "Missing"));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM asset_daily_balance WHERE asset_id = ?", Integer.class, bank.getId()));
+        assertEquals(15000L, jdbcTemplate.queryForObject(
+                "SELECT balance FROM asset_daily_balance WHERE asset_id = ? AND day = current_date", Long.class, bank.getId()));
+    }
+
+    @Test
+    void testYearOfDailySeriesPrunesPartitionsAndUsesIndexOnlyScan() {
+        for(int i = 0; i < 50; i++) {
+            Asset asset = seed("uid-2", "Asset " + i, 0);
+            jdbcTemplate.update("INSERT INTO asset_daily_balance (asset_id, day, balance) " +
+                    "SELECT ?, day::date, ? FROM generate_series('2024-06-01'::date, '2026-05-31'::date, '1 day') day", asset.getId(), (long) i);
+        }
+        jdbcTemplate.execute("VACUUM ANALYZE asset_daily_balance");
+
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        List<AssetHistoryRepository.Point> points = assetHistoryRepository.findSeries("uid-2", "test@gmail.com", from, to, HistoryBucket.MONTH);
+
+        assertEquals(50 * 12, points.size());
+        assertEquals(new AssetHistoryRepository.Point("Asset 0", LocalDate.of(2025, 1, 1), 0, "HKD"), points.get(0));
+
+        String plan = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            return String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN SELECT d.balance FROM asset a JOIN asset_daily_balance d ON d.asset_id = a.id " +
+                            "WHERE a.uid = 'uid-2' AND a.email = 'test@gmail.com' AND d.day >= '2025-01-01' AND d.day <= '2025-12-31'", String.class));
+        });
+        assertTrue(plan.contains("asset_daily_balance_2025"), plan);
+        assertFalse(plan.contains("asset_daily_balance_2024") || plan.contains("asset_daily_balance_2026"), plan);
+        assertTrue(plan.contains("Index Only Scan"), plan);
+    }
+
+    @Test
+    void testCreateYearPartitionMovesRowsOutOfDefault() {
+        Asset bank = seed("uid-3", "Bank", 0);
+        jdbcTemplate.update("INSERT INTO asset_daily_balance (asset_id, day, balance) VALUES (?, '2031-03-01', 100), (?, '2032-03-01', 200)",
+                bank.getId(), bank.getId());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertEquals(Boolean.TRUE, transactionTemplate.execute(status -> assetHistoryRepository.createYearPartition(2031)));
+        assertEquals(Boolean.FALSE, transactionTemplate.execute(status -> assetHistoryRepository.createYearPartition(2031)));
+
+        assertEquals(100L, jdbcTemplate.queryForObject("SELECT balance FROM asset_daily_balance_2031 WHERE asset_id = ?", Long.class, bank.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM asset_daily_balance_default WHERE asset_id = ?", Integer.class, bank.getId()));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM asset_daily_balance WHERE asset_id = ?", Integer.class, bank.getId()));
+    }
+
+    private Asset seed(String uid, String name, long balance) {
+        Asset asset = new Asset();
+        asset.setUID(uid);
+        asset.setEmail("test@gmail.com");
+        asset.setName(name);
+        asset.setType("bank");
+        asset.setBalance(balance);
+        asset.setColor("Purple");
+        return assetRepository.saveAndFlush(asset);
+    }
+}
@@ -0,0 +1,74 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.LedgerEntry;
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AssetLedgerRepository.class)
+@Testcontainers(disabledWithoutDocker = true)
+class AssetLedgerRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private AssetLedgerRepository assetLedgerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testRebuildBalanceFromSnapshotAndTail() {
+        String uid = UUID.randomUUID().toString();
+        Asset bank = seed(uid, "Bank");
+        assetLedgerRepository.append(List.of(LedgerEntry.opening(uid, "Bank", 100000)));
+        for(int i = 0; i < 10; i++)
+            assetLedgerRepository.append(List.of(new LedgerEntry(uid, "Bank", UUID.randomUUID(), "PAYMENT", -1000)));
+
+        assertEquals(1, assetLedgerRepository.snapshot(Duration.ZERO));
+        assetLedgerRepository.append(List.of(
+                new LedgerEntry(uid, "Bank", UUID.randomUUID(), "PAYMENT", 2500),
+                new LedgerEntry(uid, "Missing", UUID.randomUUID(), "PAYMENT", 2500)));
+
+        assertEquals(92500L, assetLedgerRepository.rebuildBalance(bank.getId()).orElseThrow());
+        assertEquals(90000L, jdbcTemplate.queryForObject(
+                "SELECT balance FROM asset_balance_snapshot WHERE asset_id = ? ORDER BY ledger_id DESC LIMIT 1", Long.class, bank.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM asset_ledger l JOIN asset_balance_snapshot s ON s.asset_id = l.asset_id " +
+                        "WHERE l.asset_id = ? AND l.id > s.ledger_id AND s.ledger_id = (SELECT max(ledger_id) FROM asset_balance_snapshot WHERE asset_id = ?)",
+                Integer.class, bank.getId(), bank.getId()));
+        assertEquals(0, assetLedgerRepository.snapshot(Duration.ofHours(1)));
+    }
+
+    private Asset seed(String uid, String name) {
+        Asset asset = new Asset();
+        asset.setUID(uid);
+        asset.setEmail("test@gmail.com");
+        asset.setName(name);
+        asset.setType("bank");
+        asset.setBalance(0);
+        asset.setColor("Purple");
+        return assetRepository.saveAndFlush(asset);
+    }
+}
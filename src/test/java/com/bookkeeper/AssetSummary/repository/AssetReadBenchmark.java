@@ -0,0 +1,129 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import com.bookkeeper.AssetSummary.model.mapper.AssetMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads one user's assets the way the list endpoint used to and the way it does now. {@code entities} loads managed
+ * {@link Asset} entities in a read-write transaction and maps them with {@link AssetMapper}; {@code projection}
+ * reads {@link AssetDTO} rows straight from {@link AssetRepository#findDtoByEmailAndUID} in a read-only transaction.
+ * Needs Docker for the PostgreSQL container. Run {@link #main} for time per read and, through the GC profiler,
+ * bytes per read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AssetReadBenchmark {
+
+    private static final String UID = "benchmark-uid";
+
+    private static final String EMAIL = "test@gmail.com";
+
+    @Param({"10", "100", "1000"})
+    private int assets;
+
+    private PostgreSQLContainer<?> postgres;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private AssetRepository assetRepository;
+
+    private AssetMapper assetMapper;
+
+    private TransactionTemplate readWrite;
+
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+        postgres.start();
+        context = new SpringApplicationBuilder(ReadPathConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword());
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for(int i = 0; i < assets; i++)
+            jdbcTemplate.update("INSERT INTO asset (uid, email, name, type, balance, color) VALUES (?, ?, ?, 'bank', ?, 'Purple')",
+                    UID, EMAIL, "Asset " + i, i * 100L);
+
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        assetRepository = context.getBean(AssetRepository.class);
+        assetMapper = context.getBean(AssetMapper.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<AssetDTO> entities() {
+        return readWrite.execute(status -> assetMapper.convertToDtoList(entityManager
+                .createQuery("SELECT a FROM Asset a WHERE a.email = :email AND a.UID = :uid", Asset.class)
+                .setParameter("email", EMAIL)
+                .setParameter("uid", UID)
+                .getResultList()));
+    }
+
+    @Benchmark
+    public List<AssetDTO> projection() {
+        return readOnly.execute(status -> assetRepository.findDtoByEmailAndUID(EMAIL, UID));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AssetReadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, JdbcTemplateAutoConfiguration.class, FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = Asset.class)
+    @EnableJpaRepositories(basePackageClasses = AssetRepository.class)
+    @Import(AssetMapper.class)
+    static class ReadPathConfig {
+    }
+}
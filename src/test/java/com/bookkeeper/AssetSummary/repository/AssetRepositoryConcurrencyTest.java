@@ -0,0 +1,240 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import com.bookkeeper.AssetSummary.service.OptimisticRetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@DataJpaTest(properties = "asset.locking.timeout=1s")
+@Import(AssetJdbcRepository.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class AssetRepositoryConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 200;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private AssetJdbcRepository assetJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testConcurrentDeltaTransfersDoNotLoseUpdates() throws Exception {
+        String uid = UUID.randomUUID().toString();
+        seed(uid, "Bank", 10000000);
+        seed(uid, "Credit Card", 0);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        long elapsed = runConcurrently(() -> transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(1, assetRepository.updateBalance(uid, "Bank", -1000));
+            assertEquals(1, assetRepository.updateBalance(uid, "Credit Card", 1000));
+        }));
+
+        int transfers = THREADS * TRANSFERS_PER_THREAD;
+        assertEquals(10000000L - transfers * 1000L, balanceOf(uid, "Bank"));
+        assertEquals(transfers * 1000L, balanceOf(uid, "Credit Card"));
+        log.info("Delta transfers: {} in {} ms, {} us per transfer",
+                transfers, TimeUnit.NANOSECONDS.toMillis(elapsed), TimeUnit.NANOSECONDS.toMicros(elapsed) / transfers);
+    }
+
+    /**
+     * Read-modify-write transfers used to lose updates. The version column now rejects a stale write, and
+     * OptimisticRetry re-runs the transfer, so every transfer lands exactly once.
+     */
+    @Test
+    void testOptimisticReadModifyWriteRetriesConflicts() throws Exception {
+        String uid = UUID.randomUUID().toString();
+        seed(uid, "Bank", 10000000);
+        seed(uid, "Credit Card", 0);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OptimisticRetry optimisticRetry = new OptimisticRetry(meterRegistry, 1000, Duration.ofMillis(1), Duration.ofMillis(20));
+
+        long elapsed = runConcurrently(() -> optimisticRetry.run("transfer", () -> transactionTemplate.executeWithoutResult(status -> {
+            Asset from = assetRepository.findByNameAndUID("Bank", uid).orElseThrow();
+            from.setBalance(from.getBalance() - 1000);
+            Asset to = assetRepository.findByNameAndUID("Credit Card", uid).orElseThrow();
+            to.setBalance(to.getBalance() + 1000);
+            assetRepository.saveAllAndFlush(List.of(from, to));
+        })));
+
+        int transfers = THREADS * TRANSFERS_PER_THREAD;
+        assertEquals(10000000L - transfers * 1000L, balanceOf(uid, "Bank"));
+        assertEquals(transfers * 1000L, balanceOf(uid, "Credit Card"));
+        assertEquals(transfers, assetRepository.findByNameAndUID("Bank", uid).orElseThrow().getVersion());
+        log.info("Optimistic transfers: {} in {} ms, {} transfers/s, {} conflicts retried",
+                transfers, TimeUnit.NANOSECONDS.toMillis(elapsed), transfers * 1_000_000_000L / elapsed,
+                (long) meterRegistry.get("asset.mutation.retries").counter().count());
+    }
+
+    @Test
+    void testStaleVersionIsRejected() {
+        String uid = UUID.randomUUID().toString();
+        seed(uid, "Bank", 10000);
+        Asset stale = assetRepository.findByNameAndUID("Bank", uid).orElseThrow();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> assertEquals(1, assetRepository.updateBalance(uid, "Bank", 500)));
+
+        stale.setBalance(stale.getBalance() - 1000);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> assetRepository.saveAndFlush(stale));
+        assertEquals(10500L, balanceOf(uid, "Bank"));
+    }
+
+    /**
+     * Opposite transfers between the same two assets, each updating its source first. Both rows are locked up front
+     * in id order, so no transaction ever waits on a row while holding the other one.
+     */
+    @Test
+    void testPessimisticOppositeTransfersDoNotDeadlock() throws Exception {
+        String uid = UUID.randomUUID().toString();
+        seed(uid, "Bank", 10000000);
+        seed(uid, "Credit Card", 10000000);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger sequence = new AtomicInteger();
+        AtomicInteger lockFailures = new AtomicInteger();
+        long deadlocksBefore = deadlocks();
+
+        long elapsed = runConcurrently(() -> {
+            boolean forward = sequence.getAndIncrement() % 2 == 0;
+            String from = forward ? "Bank" : "Credit Card";
+            String to = forward ? "Credit Card" : "Bank";
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    assertEquals(2, assetJdbcRepository.lockCurrencies(uid, List.of(from, to)).size());
+                    assertEquals(1, assetRepository.updateBalance(uid, from, -1000));
+                    assertEquals(1, assetRepository.updateBalance(uid, to, 1000));
+                });
+            } catch (PessimisticLockingFailureException e) {
+                lockFailures.incrementAndGet();
+            }
+        });
+
+        int transfers = THREADS * TRANSFERS_PER_THREAD;
+        assertEquals(0, lockFailures.get());
+        assertEquals(10000000L, balanceOf(uid, "Bank"));
+        assertEquals(10000000L, balanceOf(uid, "Credit Card"));
+        log.info("Pessimistic opposite transfers: {} in {} ms, {} transfers/s, {} deadlocks reported by PostgreSQL",
+                transfers, TimeUnit.NANOSECONDS.toMillis(elapsed), transfers * 1_000_000_000L / elapsed, deadlocks() - deadlocksBefore);
+    }
+
+    @Test
+    void testLockTimeout() throws Exception {
+        String uid = UUID.randomUUID().toString();
+        seed(uid, "Bank", 10000000);
+        seed(uid, "Credit Card", 0);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                assetJdbcRepository.lockCurrencies(uid, List.of("Bank"));
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            long begin = System.nanoTime();
+            assertThrows(PessimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(
+                    status -> assetJdbcRepository.lockCurrencies(uid, List.of("Bank", "Credit Card"))));
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            assertTrue(waited >= 900 && waited < 5000, "waited " + waited + " ms");
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private long runConcurrently(Runnable transfer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < TRANSFERS_PER_THREAD; j++)
+                        transfer.run();
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(2, TimeUnit.MINUTES);
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void seed(String uid, String name, long balance) {
+        Asset asset = new Asset();
+        asset.setUID(uid);
+        asset.setEmail("test@gmail.com");
+        asset.setName(name);
+        asset.setType("bank");
+        asset.setBalance(balance);
+        asset.setColor("Purple");
+        assetRepository.save(asset);
+    }
+
+    private long deadlocks() {
+        return jdbcTemplate.queryForObject("SELECT deadlocks FROM pg_stat_database WHERE datname = current_database()", Long.class);
+    }
+
+    private long balanceOf(String uid, String name) {
+        return assetRepository.findByNameAndUID(name, uid).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,144 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls every hot repository lookup and checks the plan PostgreSQL actually executed for it, so the statements
+ * Hibernate, Spring Data and the JDBC repositories generate are checked rather than copies of them. auto_explain
+ * logs each plan to the server log, where the test picks up everything logged up to a marker query. Sequential scans
+ * are disabled for the transaction to keep the check meaningful on a tiny test table, and each lookup must use the
+ * index it was written for, not just any index.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AssetJdbcRepository.class, AssetVersionRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+class AssetRepositoryQueryPlanTest {
+
+    private static final long LOG_TIMEOUT_MILLIS = 10_000;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private AssetJdbcRepository assetJdbcRepository;
+
+    @Autowired
+    private AssetVersionRepository assetVersionRepository;
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                query("AssetRepository.findDtoByName", "asset_name_idx",
+                        test -> test.assetRepository.findDtoByName("Asset 1")),
+                query("AssetRepository.findByNameAndUID", "asset_uid_name_idx",
+                        test -> test.assetRepository.findByNameAndUID("Asset 1", "uid-1")),
+                query("AssetRepository.findByUIDAndNameIn", "asset_uid_name_idx",
+                        test -> test.assetRepository.findByUIDAndNameIn("uid-1", List.of("Asset 1", "Asset 11"))),
+                query("AssetRepository.findDtoByEmailAndUID", "asset_email_uid_idx",
+                        test -> test.assetRepository.findDtoByEmailAndUID("user1@gmail.com", "uid-1")),
+                query("AssetRepository.findDtoPageOrderByName", "asset_uid_name_idx",
+                        test -> test.assetRepository.findDtoPageOrderByName("uid-1", "user1@gmail.com", "Asset 1", Pageable.ofSize(10))),
+                query("AssetRepository.findDtoPageOrderByType", "asset_uid_type_name_idx",
+                        test -> test.assetRepository.findDtoPageOrderByType("uid-1", "user1@gmail.com", "bank", "Asset 1", Pageable.ofSize(10))),
+                query("AssetRepository.findDtoPageOrderByBalance", "asset_uid_balance_name_idx",
+                        test -> test.assetRepository.findDtoPageOrderByBalance("uid-1", "user1@gmail.com", 0, "Asset 1", Pageable.ofSize(10))),
+                query("AssetRepository.findDtoPageOrderByBalanceDesc", "asset_uid_balance_name_idx",
+                        test -> test.assetRepository.findDtoPageOrderByBalanceDesc("uid-1", "user1@gmail.com", 0, "Asset 1", Pageable.ofSize(10))),
+                query("AssetRepository.updateBalance", "asset_uid_name_idx",
+                        test -> test.assetRepository.updateBalance("uid-1", "Asset 1", 1)),
+                query("AssetJdbcRepository.addToBalances", "asset_pkey",
+                        test -> test.assetJdbcRepository.addToBalances(new TreeMap<>(Map.of(1L, 1L)))),
+                query("AssetJdbcRepository.findCurrencies", "asset_uid_name_idx",
+                        test -> test.assetJdbcRepository.findCurrencies("uid-1", List.of("Asset 1", "Asset 11"))),
+                query("AssetJdbcRepository.lockCurrencies", "asset_uid_name_idx",
+                        test -> test.assetJdbcRepository.lockCurrencies("uid-1", List.of("Asset 1", "Asset 11"))),
+                query("AssetJdbcRepository.streamDtoByUID", "asset_uid_name_idx",
+                        test -> {
+                            try(Stream<AssetDTO> assets = test.assetJdbcRepository.streamDtoByUID("uid-1")) {
+                                assets.forEach(asset -> {});
+                            }
+                        }),
+                query("AssetVersionRepository.findByAssetName", "asset_name_idx",
+                        test -> test.assetVersionRepository.findByAssetName("Asset 1"))
+        );
+    }
+
+    @BeforeEach
+    public void setup() {
+        for(int i = 0; i < 50; i++) {
+            jdbcTemplate.update("INSERT INTO asset (id, uid, email, name, type, balance, color) VALUES (nextval('asset_seq'), ?, ?, ?, 'bank', 0, 'Purple')",
+                    "uid-" + (i % 10), "user" + (i % 10) + "@gmail.com", "Asset " + i);
+        }
+        jdbcTemplate.execute("ANALYZE asset");
+        jdbcTemplate.execute("LOAD 'auto_explain'");
+        jdbcTemplate.execute("SET LOCAL auto_explain.log_min_duration = 0");
+        jdbcTemplate.execute("SET LOCAL auto_explain.log_format = 'json'");
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void testQueryUsesIndex(String repositoryMethod, String index, Consumer<AssetRepositoryQueryPlanTest> call) throws InterruptedException {
+        String plans = executedPlans(() -> call.accept(this));
+
+        assertTrue(plans.contains("\"Query Text\""), repositoryMethod + " ran no statement");
+        assertFalse(plans.contains("\"Node Type\": \"Seq Scan\""), repositoryMethod + " falls back to a sequential scan:\n" + plans);
+        assertTrue(plans.contains("\"Index Name\": \"" + index + "\""), repositoryMethod + " does not use " + index + ":\n" + plans);
+    }
+
+    /**
+     * @return the plans auto_explain logged for the statements {@code call} ran
+     */
+    private String executedPlans(Runnable call) throws InterruptedException {
+
+        int from = postgres.getLogs().length();
+        call.run();
+        String marker = "plan-marker-" + UUID.randomUUID();
+        jdbcTemplate.queryForObject("SELECT '" + marker + "'", String.class);
+
+        long deadline = System.currentTimeMillis() + LOG_TIMEOUT_MILLIS;
+        while(true) {
+            String logs = postgres.getLogs();
+            int end = logs.indexOf(marker, from);
+            if(end >= 0)
+                return logs.substring(from, end);
+
+            assertTrue(System.currentTimeMillis() < deadline, "auto_explain did not log the marker query");
+            Thread.sleep(50);
+        }
+    }
+
+    private static Arguments query(String repositoryMethod, String index, Consumer<AssetRepositoryQueryPlanTest> call) {
+        return Arguments.of(repositoryMethod, index, call);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bookkeeper.AssetSummary.repository;
+
+import com.bookkeeper.AssetSummary.model.dto.SummaryChange;
+import com.bookkeeper.AssetSummary.model.entity.Asset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserSummaryRepository.class)
+@Testcontainers(disabledWithoutDocker = true)
+class UserSummaryRepositoryTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private UserSummaryRepository userSummaryRepository;
+
+    @Test
+    void testApplyGroupsChangesByTypeAndColor() {
+        String uid = "uid-1";
+        seed(uid, "Bank", "bank", "Purple", 100000);
+        seed(uid, "Savings", "bank", "Green", 50000);
+        seed(uid, "Credit Card", "credit card", "Purple", 0);
+        userSummaryRepository.apply(uid, List.of(
+                new SummaryChange("Bank", 100000, 1),
+                new SummaryChange("Savings", 50000, 1),
+                new SummaryChange("Credit Card", 0, 1)));
+
+        userSummaryRepository.apply(uid, List.of(
+                new SummaryChange("Bank", -20000, 0),
+                new SummaryChange("Credit Card", 20000, 0),
+                new SummaryChange("Unknown", 99900, 0)));
+
+        assertEquals(List.of(
+                new UserSummaryRepository.Total("bank", "HKD", 130000, 2),
+                new UserSummaryRepository.Total("credit card", "HKD", 20000, 1)),
+                userSummaryRepository.findByDimension(uid, UserSummaryRepository.TYPE));
+        assertEquals(List.of(
+                new UserSummaryRepository.Total("Green", "HKD", 50000, 1),
+                new UserSummaryRepository.Total("Purple", "HKD", 100000, 2)),
+                userSummaryRepository.findByDimension(uid, UserSummaryRepository.COLOR));
+
+        userSummaryRepository.apply(uid, List.of(new SummaryChange("Credit Card", -20000, -1)));
+
+        assertEquals(List.of(new UserSummaryRepository.Total("bank", "HKD", 130000, 2)),
+                userSummaryRepository.findByDimension(uid, UserSummaryRepository.TYPE));
+    }
+
+    @Test
+    void testDeletedForeignCurrencyAssetLeavesNothingBehind() {
+        String uid = "uid-2";
+        seed(uid, "Bank", "bank", "Purple", 100000);
+        Asset wallet = seed(uid, "Wallet", "bank", "Purple", 0, "USD");
+        userSummaryRepository.apply(uid, List.of(new SummaryChange("Bank", 100000, 1), new SummaryChange("Wallet", 0, 1)));
+        userSummaryRepository.apply(uid, List.of(new SummaryChange("Wallet", 1234, 0)));
+
+        assertEquals(List.of(
+                new UserSummaryRepository.Total("bank", "HKD", 100000, 1),
+                new UserSummaryRepository.Total("bank", "USD", 1234, 1)),
+                userSummaryRepository.findByDimension(uid, UserSummaryRepository.TYPE));
+
+        userSummaryRepository.apply(uid, List.of(new SummaryChange("Wallet", -1234, -1)));
+        assetRepository.delete(wallet);
+        seed(uid, "Travel", "bank", "Purple", 500, "USD");
+        userSummaryRepository.apply(uid, List.of(new SummaryChange("Travel", 500, 1)));
+
+        assertEquals(List.of(
+                new UserSummaryRepository.Total("bank", "HKD", 100000, 1),
+                new UserSummaryRepository.Total("bank", "USD", 500, 1)),
+                userSummaryRepository.findByDimension(uid, UserSummaryRepository.TYPE));
+    }
+
+    private void seed(String uid, String name, String type, String color, long balance) {
+        seed(uid, name, type, color, balance, "HKD");
+    }
+
+    private Asset seed(String uid, String name, String type, String color, long balance, String currency) {
+        Asset asset = new Asset();
+        asset.setUID(uid);
+        asset.setEmail("test@gmail.com");
+        asset.setName(name);
+        asset.setType(type);
+        asset.setBalance(balance);
+        asset.setColor(color);
+        asset.setCurrency(currency);
+        return assetRepository.saveAndFlush(asset);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import com.bookkeeper.AssetSummary.model.dto.AssetVersion;
+import com.bookkeeper.AssetSummary.model.dto.VersionedAssets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AssetCache assetCache = new AssetCache(100, Duration.ofMinutes(5), meterRegistry);
+
+    @Test
+    void testLoadsOnceUntilInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+        VersionedAssets assets = new VersionedAssets(new AssetVersion(1, null), List.of(new AssetDTO("Bank", "bank", 10000.0, "Purple")));
+
+        assetCache.get("uid", "test@gmail.com", assets.version(), () -> { loads.incrementAndGet(); return assets; });
+        assertEquals(assets, assetCache.get("uid", "test@gmail.com", assets.version(), () -> { loads.incrementAndGet(); return assets; }));
+        assertEquals(1, loads.get());
+
+        assetCache.invalidate("uid");
+        assetCache.get("uid", "test@gmail.com", assets.version(), () -> { loads.incrementAndGet(); return assets; });
+        assertEquals(2, loads.get());
+        assertEquals(2, meterRegistry.get("asset.cache.load").timer().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testOtherEmailIsNotServedFromCache() {
+        VersionedAssets cached = new VersionedAssets(new AssetVersion(1, null), List.of(new AssetDTO("Bank", "bank", 10000.0, "Purple")));
+        VersionedAssets other = new VersionedAssets(new AssetVersion(1, null), List.of());
+
+        assetCache.get("uid", "test@gmail.com", cached.version(), () -> cached);
+
+        assertEquals(other, assetCache.get("uid", "other@gmail.com", other.version(), () -> other));
+    }
+
+    @Test
+    void testNewerVersionFromAnotherInstanceReloads() {
+        VersionedAssets cached = new VersionedAssets(new AssetVersion(1, null), List.of(new AssetDTO("Bank", "bank", 10000.0, "Purple")));
+        VersionedAssets updated = new VersionedAssets(new AssetVersion(2, null), List.of(new AssetDTO("Bank", "bank", 5000.0, "Purple")));
+
+        assetCache.get("uid", "test@gmail.com", cached.version(), () -> cached);
+
+        assertEquals(cached, assetCache.get("uid", "test@gmail.com", AssetVersion.INITIAL, () -> updated));
+        assertEquals(updated, assetCache.get("uid", "test@gmail.com", updated.version(), () -> updated));
+        assertEquals(updated, assetCache.get("uid", "test@gmail.com", cached.version(), () -> cached));
+    }
+}
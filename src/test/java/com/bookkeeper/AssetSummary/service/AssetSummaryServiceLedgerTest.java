@@ -0,0 +1,130 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.config.ReplicaRouting;
+import com.bookkeeper.AssetSummary.model.dto.AssetDTO;
+import com.bookkeeper.AssetSummary.model.dto.Money;
+import com.bookkeeper.AssetSummary.model.dto.PaymentDTO;
+import com.bookkeeper.AssetSummary.model.mapper.AssetMapper;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.repository.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends random payments through the service and reconciles what PostgreSQL ends up holding: every stored balance
+ * equals the cents sent to and from it, the sum of its ledger entries and the balance rebuilt from the ledger.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@Import({AssetSummaryService.class, AssetMapper.class, AssetCache.class, FxRateTable.class,
+        OptimisticRetry.class, AssetJdbcRepository.class, AssetVersionRepository.class, AssetLedgerRepository.class,
+        AssetHistoryRepository.class, UserSummaryRepository.class, ProcessedMessageRepository.class, FxRateRepository.class,
+        ReplicaRouting.class, AssetSummaryServiceLedgerTest.Metrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class AssetSummaryServiceLedgerTest {
+
+    private static final String[] ASSETS = {"Bank", "Cash", "Credit Card", "Savings"};
+
+    private static final int PAYMENTS = 500;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private AssetSummaryService assetSummaryService;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private AssetLedgerRepository assetLedgerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(longs = {1L, 42L, 2024L})
+    void testBalancesReconcileWithLedger(long seed) {
+        Random random = new Random(seed);
+        String uid = UUID.randomUUID().toString();
+        long[] expected = new long[ASSETS.length];
+        for(int i = 0; i < ASSETS.length; i++) {
+            double opening = random.nextInt(1_000_000) / 100.0;
+            assetSummaryService.createAsset(uid, "test@gmail.com", new AssetDTO(ASSETS[i], "bank", opening, "Purple"));
+            expected[i] = Money.toMinor(opening, "HKD");
+        }
+
+        for(int i = 0; i < PAYMENTS; i++) {
+            int from = random.nextInt(ASSETS.length);
+            int to = (from + 1 + random.nextInt(ASSETS.length - 1)) % ASSETS.length;
+            double amount = random.nextInt(100_000) / 100.0;
+            assetSummaryService.updateAssetWithMessageQueue(payment(uid, ASSETS[from], ASSETS[to], amount));
+            expected[from] -= Money.toMinor(amount, "HKD");
+            expected[to] += Money.toMinor(amount, "HKD");
+        }
+
+        for(int i = 0; i < ASSETS.length; i++) {
+            long id = assetRepository.findByNameAndUID(ASSETS[i], uid).orElseThrow().getId();
+            long stored = jdbcTemplate.queryForObject("SELECT balance FROM asset WHERE id = ?", Long.class, id);
+            long ledger = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(delta), 0) FROM asset_ledger WHERE asset_id = ?", Long.class, id);
+
+            assertEquals(expected[i], stored, ASSETS[i]);
+            assertEquals(stored, ledger, ASSETS[i]);
+            assertEquals(stored, assetLedgerRepository.rebuildBalance(id).orElseThrow(), ASSETS[i]);
+        }
+    }
+
+    private AssetMessage payment(String uid, String from, String to, double amount) {
+        AssetMessage message = new AssetMessage();
+        message.setUid(uid);
+        message.setEmail("test@gmail.com");
+        message.setRequestRecord(PaymentDTO.builder()
+                .uuid(UUID.randomUUID())
+                .description("transfer")
+                .category("Transfer")
+                .paymentMethod("FPS")
+                .date(LocalDate.now())
+                .amount(amount)
+                .currency("HKD")
+                .paymentFrom(from)
+                .paymentTo(to)
+                .build());
+        return message;
+    }
+
+    @TestConfiguration
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
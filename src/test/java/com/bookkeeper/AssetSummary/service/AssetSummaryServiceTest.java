@@ -1,5 +1,6 @@
 package com.bookkeeper.AssetSummary.service;
 
+import com.bookkeeper.AssetSummary.config.ReplicaRouting;
 import com.bookkeeper.AssetSummary.model.dto.*;
 import com.bookkeeper.AssetSummary.model.entity.Asset;
 import com.bookkeeper.AssetSummary.model.exception.AssetAlreadyExisting;
@@ -7,14 +8,44 @@ import com.bookkeeper.AssetSummary.model.exception.AssetNotFound;
 import com.bookkeeper.AssetSummary.model.exception.ForbiddenException;
 import com.bookkeeper.AssetSummary.model.exception.GlobalException;
 import com.bookkeeper.AssetSummary.model.mapper.AssetMapper;
+import com.bookkeeper.AssetSummary.model.message.AssetMessage;
+import com.bookkeeper.AssetSummary.model.message.MessageAction;
+import com.bookkeeper.AssetSummary.model.response.ImportRowError;
+import com.bookkeeper.AssetSummary.model.response.PaymentResult;
+import com.bookkeeper.AssetSummary.repository.AssetHistoryRepository;
+import com.bookkeeper.AssetSummary.repository.AssetJdbcRepository;
+import com.bookkeeper.AssetSummary.repository.AssetLedgerRepository;
 import com.bookkeeper.AssetSummary.repository.AssetRepository;
+import com.bookkeeper.AssetSummary.repository.AssetVersionRepository;
+import com.bookkeeper.AssetSummary.repository.FxRateRepository;
+import com.bookkeeper.AssetSummary.repository.ProcessedMessageRepository;
+import com.bookkeeper.AssetSummary.repository.UserSummaryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
-
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -30,9 +61,54 @@ class AssetSummaryServiceTest {
     @Mock
     private AssetMapper assetMapper;
 
+    @Mock
+    private ProcessedMessageRepository processedMessageRepository;
+
+    @Mock
+    private AssetCache assetCache;
+
+    @Mock
+    private AssetJdbcRepository assetJdbcRepository;
+
+    @Mock
+    private AssetVersionRepository assetVersionRepository;
+
+    @Mock
+    private AssetLedgerRepository assetLedgerRepository;
+
+    @Mock
+    private AssetHistoryRepository assetHistoryRepository;
+
+    @Mock
+    private UserSummaryRepository userSummaryRepository;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private FxRateTable fxRateTable = new FxRateTable(mock(FxRateRepository.class));
+
+    @Spy
+    private ReplicaRouting replicaRouting = new ReplicaRouting(Duration.ofSeconds(5), Duration.ofSeconds(1), Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO);
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(MockitoAnnotations.openMocks(this));
+        ReflectionTestUtils.setField(assetSummaryService, "bulkMaxSize", 5000);
+        ReflectionTestUtils.setField(assetSummaryService, "importChunkSize", 1000);
+        ReflectionTestUtils.setField(assetSummaryService, "pageMaxSize", 200);
+        ReflectionTestUtils.setField(assetSummaryService, "historyMaxDays", 1830);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(assetCache.get(anyString(), anyString(), any(), any())).thenAnswer(invocation -> invocation.<Supplier<VersionedAssets>>getArgument(3).get());
     }
 
     @Test
@@ -47,11 +123,11 @@ class AssetSummaryServiceTest {
 
         ArgumentCaptor<Asset> argumentCaptor = ArgumentCaptor.forClass(Asset.class);
         when(assetMapper.convertToEntity(assetDTO)).thenReturn(mappedAsset);
-        when(assetRepository.save(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
+        when(assetRepository.saveAndFlush(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
         when(assetMapper.convertToDto(isA(Asset.class))).thenReturn(assetDTO);
 
         assetSummaryService.createAsset(uid, email, assetDTO);
-        verify(assetRepository).save(argumentCaptor.capture());
+        verify(assetRepository).saveAndFlush(argumentCaptor.capture());
         assertEquals(email, argumentCaptor.getValue().getEmail());
         assertEquals(uid, argumentCaptor.getValue().getUID());
     }
@@ -75,16 +151,47 @@ class AssetSummaryServiceTest {
         );
     }
 
+    @Test
+    void testConcurrentCreationHitsUniqueIndex() {
+
+        String email = "test@gmail.com";
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+
+        AssetDTO assetDTO = new AssetDTO("Bank","bank", 10000.0, "Purple");
+
+        when(assetRepository.findByNameAndUID("Bank", uid)).thenReturn(Optional.empty());
+        when(assetMapper.convertToEntity(assetDTO)).thenReturn(createAsset("Bank","bank", 10000.0));
+        when(assetRepository.saveAndFlush(isA(Asset.class))).thenThrow(new DataIntegrityViolationException("asset_uid_name_idx"));
+
+        assertThrows(
+                AssetAlreadyExisting.class,
+                () -> assetSummaryService.createAsset(uid, email, assetDTO),
+                "Asset already exist"
+        );
+    }
+
     @Test
     void testGetAssetByNameSuccess() {
 
         String assetName = "Bank";
-        Asset bankAsset = createAsset("Bank", "bank", 100000.0);
         AssetDTO bankAssetDTO = new AssetDTO("Bank", "bank", 100000.0, "Purple");
-        when(assetRepository.findByName("Bank")).thenReturn(Optional.of(bankAsset));
-        when(assetMapper.convertToDto(bankAsset)).thenReturn(bankAssetDTO);
+        when(assetRepository.findDtoByName("Bank")).thenReturn(Optional.of(bankAssetDTO));
+
+        assertEquals(bankAssetDTO, assetSummaryService.getAssetByName("sdg3258rgdsjhgbj32dfgf8865", assetName));
+        verifyNoInteractions(assetMapper);
+        verify(replicaRouting).readFor("sdg3258rgdsjhgbj32dfgf8865");
+    }
+
+    @Test
+    void testGetAssetByNameWithoutReaderUsesPrimary() {
+        when(assetRepository.findDtoByName("Bank")).thenReturn(Optional.of(new AssetDTO("Bank", "bank", 100000.0, "Purple")));
+        when(assetVersionRepository.findByAssetName("Bank")).thenReturn(Optional.empty());
 
-        assertEquals(bankAssetDTO, assetSummaryService.getAssetByName(assetName));
+        assetSummaryService.getAssetVersionByName(null, "Bank");
+        assetSummaryService.getAssetByName(null, "Bank");
+
+        verify(replicaRouting, times(2)).readFromPrimary();
+        verify(replicaRouting, never()).readFor(any());
     }
 
     @Test
@@ -92,11 +199,11 @@ class AssetSummaryServiceTest {
 
         String assetName = "Test";
 
-        Mockito.when(assetRepository.findByName(assetName)).thenReturn(Optional.empty());
+        Mockito.when(assetRepository.findDtoByName(assetName)).thenReturn(Optional.empty());
 
         Exception thrown = assertThrows(
                 AssetNotFound.class,
-                () -> assetSummaryService.getAssetByName(assetName),
+                () -> assetSummaryService.getAssetByName(null, assetName),
                 "Asset Not Found in given record"
         );
 
@@ -118,22 +225,18 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetFrom)
                 .paymentTo(assetTo)
                 .build();
-        Asset asset = createAsset("Bank", "bank account", 30000.0);
-        AssetDTO assetDTO = new AssetDTO("Bank", "bank account", 30000.0, "Purple");
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("request_record", paymentDTO);
-
-        ArgumentCaptor<Asset> argumentCaptor = ArgumentCaptor.forClass(Asset.class);
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.of(asset));
-        when(assetRepository.save(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
-        when(assetRepository.findByNameAndUID(assetTo, uid)).thenReturn(Optional.empty());
-        when(assetMapper.convertToDto(isA(Asset.class))).thenReturn(assetDTO);
-
-        assetSummaryService.updateAssetWithMessageQueue(map);
-        verify(assetRepository).save(argumentCaptor.capture());
-        assertEquals(20000, argumentCaptor.getValue().getBalance());
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setRequestRecord(paymentDTO);
+
+        when(assetRepository.updateBalance(uid, assetFrom, -1000000)).thenReturn(1);
+        when(assetRepository.updateBalance(uid, assetTo, 1000000)).thenReturn(0);
+
+        assetSummaryService.updateAssetWithMessageQueue(message);
+        verify(assetRepository).updateBalance(uid, assetFrom, -1000000);
+        verify(assetRepository, never()).findByNameAndUID(anyString(), anyString());
+        verify(assetRepository, never()).save(isA(Asset.class));
     }
 
     @Test
@@ -151,22 +254,17 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetFrom)
                 .paymentTo(assetTo)
                 .build();
-        Asset asset = createAsset("Bank", "bank account", 30000.0);
-        AssetDTO assetDTO = new AssetDTO("Bank", "bank account", 30000.0, "Purple");
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("request_record", paymentDTO);
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setRequestRecord(paymentDTO);
 
-        ArgumentCaptor<Asset> argumentCaptor = ArgumentCaptor.forClass(Asset.class);
-        when(assetRepository.findByNameAndUID(assetTo, uid)).thenReturn(Optional.of(asset));
-        when(assetRepository.save(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.empty());
-        when(assetMapper.convertToDto(isA(Asset.class))).thenReturn(assetDTO);
+        when(assetRepository.updateBalance(uid, assetFrom, -1000000)).thenReturn(0);
+        when(assetRepository.updateBalance(uid, assetTo, 1000000)).thenReturn(1);
 
-        assetSummaryService.updateAssetWithMessageQueue(map);
-        verify(assetRepository).save(argumentCaptor.capture());
-        assertEquals(40000, argumentCaptor.getValue().getBalance());
+        assetSummaryService.updateAssetWithMessageQueue(message);
+        verify(assetRepository).updateBalance(uid, assetTo, 1000000);
+        verify(assetRepository, never()).save(isA(Asset.class));
     }
 
     @Test
@@ -184,27 +282,18 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetFrom)
                 .paymentTo(assetTo)
                 .build();
-        Asset bank = createAsset("Bank", "bank account", 40000.0);
-        AssetDTO bankDTO = new AssetDTO("Bank", "bank account", 40000.0, "Purple");
-        Asset creditCard = createAsset("Credit Card", "credit card", 10000.0);
-        AssetDTO creditCardDTO = new AssetDTO("Credit Card", "credit card", 10000.0, "Purple");
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("request_record", paymentDTO);
-
-        ArgumentCaptor<Asset> argumentCaptor = ArgumentCaptor.forClass(Asset.class);
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.of(bank));
-        when(assetRepository.findByNameAndUID(assetTo, uid)).thenReturn(Optional.of(creditCard));
-        when(assetRepository.save(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
-        when(assetMapper.convertToDto(bank)).thenReturn(bankDTO);
-        when(assetMapper.convertToDto(creditCard)).thenReturn(creditCardDTO);
-
-        assetSummaryService.updateAssetWithMessageQueue(map);
-        verify(assetRepository, times(2)).save(argumentCaptor.capture());
-        List<Asset> assets = argumentCaptor.getAllValues();
-        assertEquals(30000, assets.get(0).getBalance());
-        assertEquals(20000, assets.get(1).getBalance());
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setRequestRecord(paymentDTO);
+
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.updateAssetWithMessageQueue(message);
+        InOrder inOrder = inOrder(assetRepository);
+        inOrder.verify(assetRepository).updateBalance(uid, assetFrom, -1000000);
+        inOrder.verify(assetRepository).updateBalance(uid, assetTo, 1000000);
+        verify(assetRepository, never()).save(isA(Asset.class));
     }
 
     @Test
@@ -222,17 +311,16 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetFrom)
                 .paymentTo(assetTo)
                 .build();
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("request_record", paymentDTO);
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setRequestRecord(paymentDTO);
 
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.empty());
-        when(assetRepository.findByNameAndUID(assetTo, uid)).thenReturn(Optional.empty());
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(0);
 
-        assetSummaryService.updateAssetWithMessageQueue(map);
-        verify(assetRepository).findByNameAndUID(assetFrom, uid);
-        verify(assetRepository).findByNameAndUID(assetTo, uid);
+        assetSummaryService.updateAssetWithMessageQueue(message);
+        verify(assetRepository).updateBalance(uid, assetFrom, -10000);
+        verify(assetRepository).updateBalance(uid, assetTo, 10000);
     }
 
     @Test
@@ -248,13 +336,13 @@ class AssetSummaryServiceTest {
                 .paymentFrom(null)
                 .paymentTo(assetTo)
                 .build();
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("request_record", paymentDTO);
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setRequestRecord(paymentDTO);
 
         assertThrows(GlobalException.class,
-                () -> assetSummaryService.updateAssetWithMessageQueue(map),
+                () -> assetSummaryService.updateAssetWithMessageQueue(message),
                 "Invalid request");
     }
 
@@ -283,27 +371,19 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetTo)
                 .paymentTo(assetFrom)
                 .build();
-        Asset bank = createAsset("Bank", "bank account", 30000.0);
-        AssetDTO bankDTO = new AssetDTO("Bank", "bank account", 30000.0, "Purple");
-        Asset creditCard = createAsset("Credit Card", "credit card", 10000.0);
-        AssetDTO creditCardDTO = new AssetDTO("Credit Card", "credit card", 10000.0, "Purple");
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("request_record", paymentDTO);
-        map.put("reverse_record", reverse);
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.of(bank));
-        when(assetRepository.findByNameAndUID(assetTo, uid)).thenReturn(Optional.of(creditCard));
-        when(assetRepository.save(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
-        when(assetMapper.convertToDto(bank)).thenReturn(bankDTO);
-        when(assetMapper.convertToDto(creditCard)).thenReturn(creditCardDTO);
-
-        assetSummaryService.updateAssetWithMessageQueue(map);
-        ArgumentCaptor<Asset> argumentCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepository, times(2)).save(argumentCaptor.capture());
-        List<Asset> assets = argumentCaptor.getAllValues();
-        assertEquals(25000, assets.get(0).getBalance());
-        assertEquals(15000, assets.get(1).getBalance());
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setRequestRecord(paymentDTO);
+        message.setReverseRecord(reverse);
+        message.setMessageId(UUID.randomUUID());
+        when(processedMessageRepository.markProcessed(any(), any())).thenReturn(true);
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.updateAssetWithMessageQueue(message);
+        verify(assetRepository).updateBalance(uid, assetFrom, -500000);
+        verify(assetRepository).updateBalance(uid, assetTo, 500000);
+        verify(assetRepository, never()).save(isA(Asset.class));
     }
 
     @Test
@@ -330,15 +410,17 @@ class AssetSummaryServiceTest {
                 .amount(5000)
                 .paymentTo(assetFrom)
                 .build();
-        HashMap<String, Object> map_null = new HashMap<>();
-        map_null.put("uid", uid);
-        map_null.put("email", "test@gmail.com");
-        map_null.put("request_record", paymentDTO);
-        map_null.put("reverse_record", reverse_null);
+        AssetMessage message_null = new AssetMessage();
+        message_null.setUid(uid);
+        message_null.setEmail("test@gmail.com");
+        message_null.setRequestRecord(paymentDTO);
+        message_null.setReverseRecord(reverse_null);
+        message_null.setMessageId(UUID.randomUUID());
+        when(processedMessageRepository.markProcessed(any(), any())).thenReturn(true);
 
         assertThrows(
                 GlobalException.class,
-                () -> assetSummaryService.updateAssetWithMessageQueue(map_null),
+                () -> assetSummaryService.updateAssetWithMessageQueue(message_null),
                 "Invalid request"
         );
 
@@ -352,15 +434,16 @@ class AssetSummaryServiceTest {
                 .paymentTo(assetTo)
                 .paymentFrom(assetFrom)
                 .build();
-        HashMap<String, Object> map_unequal = new HashMap<>();
-        map_unequal.put("uid", uid);
-        map_unequal.put("email", "test@gmail.com");
-        map_unequal.put("request_record", paymentDTO);
-        map_unequal.put("reverse_record", reverse_unequal);
+        AssetMessage message_unequal = new AssetMessage();
+        message_unequal.setUid(uid);
+        message_unequal.setEmail("test@gmail.com");
+        message_unequal.setRequestRecord(paymentDTO);
+        message_unequal.setReverseRecord(reverse_unequal);
+        message_unequal.setMessageId(UUID.randomUUID());
 
         assertThrows(
                 GlobalException.class,
-                () -> assetSummaryService.updateAssetWithMessageQueue(map_unequal),
+                () -> assetSummaryService.updateAssetWithMessageQueue(message_unequal),
                 "Invalid reverse request"
         );
 
@@ -374,27 +457,297 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetTo)
                 .paymentTo(assetFrom)
                 .build();
-        HashMap<String, Object> map_notFound = new HashMap<>();
-        map_notFound.put("uid", uid);
-        map_notFound.put("email", "test@gmail.com");
-        map_notFound.put("request_record", paymentDTO);
-        map_notFound.put("reverse_record", reverse);
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.empty());
+        AssetMessage message_notFound = new AssetMessage();
+        message_notFound.setUid(uid);
+        message_notFound.setEmail("test@gmail.com");
+        message_notFound.setRequestRecord(paymentDTO);
+        message_notFound.setReverseRecord(reverse);
+        message_notFound.setMessageId(UUID.randomUUID());
+        when(assetRepository.updateBalance(eq(uid), eq(assetFrom), anyLong())).thenReturn(0);
+        assertThrows(
+                AssetNotFound.class,
+                () -> assetSummaryService.updateAssetWithMessageQueue(message_notFound),
+                "Asset Not Found in given record"
+        );
+    }
+
+    @Test
+    void testUpdateAssetConvertsIntoAssetCurrency() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.8), new FxRate("HKD", "JPY", 19.0)));
+        PaymentDTO payment = createPayment("Bank", "Yen Wallet", 10.25);
+        payment.setCurrency("USD");
+        when(assetJdbcRepository.findCurrencies(eq(uid), anyCollection())).thenReturn(Map.of("Bank", "HKD", "Yen Wallet", "JPY"));
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.updateAsset(uid, payment, false);
+
+        verify(assetRepository).updateBalance(uid, "Bank", -7995);
+        verify(assetRepository).updateBalance(uid, "Yen Wallet", 1519);
+        verify(assetLedgerRepository).append(List.of(
+                new LedgerEntry(uid, "Bank", payment.getUuid(), "PAYMENT", -7995),
+                new LedgerEntry(uid, "Yen Wallet", payment.getUuid(), "PAYMENT", 1519)));
+        ArgumentCaptor<List<SummaryChange>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(userSummaryRepository).apply(eq(uid), argumentCaptor.capture());
+        assertEquals(Set.of(new SummaryChange("Bank", -7995, 0), new SummaryChange("Yen Wallet", 1519, 0)),
+                new HashSet<>(argumentCaptor.getValue()));
+    }
+
+    @Test
+    void testUpdateAssetUnsupportedCurrency() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        PaymentDTO payment = createPayment("Bank", "Credit Card", 100);
+        payment.setCurrency("EUR");
+        when(assetJdbcRepository.findCurrencies(eq(uid), anyCollection())).thenReturn(Map.of("Bank", "HKD", "Credit Card", "HKD"));
+
+        GlobalException exception = assertThrows(GlobalException.class, () -> assetSummaryService.updateAsset(uid, payment, false));
+        assertEquals("0217", exception.getCode());
+        verify(assetRepository, never()).updateBalance(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void testUpdateAssetPessimisticLocksBeforeUpdating() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        ReflectionTestUtils.setField(assetSummaryService, "lockingMode", LockingMode.PESSIMISTIC);
+        PaymentDTO payment = createPayment("Bank", "Credit Card", 100);
+        when(assetJdbcRepository.lockCurrencies(eq(uid), anyCollection())).thenReturn(Map.of("Bank", "HKD", "Credit Card", "HKD"));
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.updateAsset(uid, payment, false);
+
+        InOrder inOrder = inOrder(assetJdbcRepository, assetRepository);
+        inOrder.verify(assetJdbcRepository).lockCurrencies(uid, Set.of("Bank", "Credit Card"));
+        inOrder.verify(assetRepository).updateBalance(uid, "Bank", -10000);
+        inOrder.verify(assetRepository).updateBalance(uid, "Credit Card", 10000);
+        verify(assetJdbcRepository, never()).findCurrencies(anyString(), anyCollection());
+    }
+
+    @Test
+    void testUpdateAssetLockTimeout() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        ReflectionTestUtils.setField(assetSummaryService, "lockingMode", LockingMode.PESSIMISTIC);
+        PaymentDTO payment = createPayment("Bank", "Credit Card", 100);
+        when(assetJdbcRepository.lockCurrencies(eq(uid), anyCollection()))
+                .thenThrow(new CannotAcquireLockException("canceling statement due to lock timeout"));
+
+        GlobalException exception = assertThrows(GlobalException.class, () -> assetSummaryService.updateAsset(uid, payment, false));
+        assertEquals("0220", exception.getCode());
+        verify(assetRepository, never()).updateBalance(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    void testUpdateAssetOptimisticRetriesOnConflict() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        ReflectionTestUtils.setField(assetSummaryService, "lockingMode", LockingMode.OPTIMISTIC);
+        PaymentDTO payment = createPayment("Bank", "Credit Card", 100);
+        when(assetRepository.findByUIDAndNameIn(eq(uid), anyCollection())).thenAnswer(invocation -> List.of(
+                createAsset("Bank", "bank", 1000.0, "test@gmail.com", uid),
+                createAsset("Credit Card", "credit", 0.0, "test@gmail.com", uid)));
+        ArgumentCaptor<List<Asset>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        when(assetRepository.saveAllAndFlush(argumentCaptor.capture()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Asset.class, 1L))
+                .thenAnswer(invocation -> new ArrayList<>((Collection<Asset>) invocation.getArgument(0)));
+
+        assetSummaryService.updateAsset(uid, payment, false);
+
+        verify(assetRepository, times(2)).saveAllAndFlush(anyList());
+        verify(assetRepository, never()).updateBalance(anyString(), anyString(), anyLong());
+        Map<String, Long> balances = new HashMap<>();
+        argumentCaptor.getValue().forEach(asset -> balances.put(asset.getName(), asset.getBalance()));
+        assertEquals(Map.of("Bank", 90000L, "Credit Card", 10000L), balances);
+        verify(assetLedgerRepository).append(anyList());
+    }
+
+    @Test
+    void testUpdateAssetOptimisticGivesUp() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        ReflectionTestUtils.setField(assetSummaryService, "lockingMode", LockingMode.OPTIMISTIC);
+        PaymentDTO payment = createPayment("Bank", "Credit Card", 100);
+        when(assetRepository.findByUIDAndNameIn(eq(uid), anyCollection())).thenAnswer(invocation -> List.of(
+                createAsset("Bank", "bank", 1000.0, "test@gmail.com", uid),
+                createAsset("Credit Card", "credit", 0.0, "test@gmail.com", uid)));
+        when(assetRepository.saveAllAndFlush(anyList())).thenThrow(new ObjectOptimisticLockingFailureException(Asset.class, 1L));
+
+        GlobalException exception = assertThrows(GlobalException.class, () -> assetSummaryService.updateAsset(uid, payment, false));
+        assertEquals("0221", exception.getCode());
+        verify(assetRepository, times(3)).saveAllAndFlush(anyList());
+        verify(assetLedgerRepository, never()).append(anyList());
+    }
+
+    @Test
+    void testProcessMessageBatchNetsDeltas() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AssetMessage payment = new AssetMessage();
+        payment.setUid(uid);
+        payment.setRequestRecord(PaymentDTO.builder().amount(100.0).paymentFrom("Bank").paymentTo("Credit Card").build());
+        AssetMessage refund = new AssetMessage();
+        refund.setUid(uid);
+        refund.setRequestRecord(PaymentDTO.builder().amount(30.0).paymentFrom("Credit Card").paymentTo("Bank").build());
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.processMessageBatch(List.of(payment, refund, payment));
+
+        verify(assetRepository).updateBalance(uid, "Bank", -17000);
+        verify(assetRepository).updateBalance(uid, "Credit Card", 17000);
+        verifyNoMoreInteractions(assetRepository);
+    }
+
+    @Test
+    void testProcessMessageBatchAppendsLedgerPerMessage() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        AssetMessage payment = new AssetMessage();
+        payment.setUid(uid);
+        payment.setRequestRecord(PaymentDTO.builder().uuid(first).amount(100.0).paymentFrom("Bank").paymentTo("Credit Card").build());
+        AssetMessage cancel = new AssetMessage();
+        cancel.setUid(uid);
+        cancel.setCancel(PaymentDTO.builder().uuid(second).amount(30.0).paymentFrom("Bank").paymentTo("Credit Card").build());
+        when(processedMessageRepository.markProcessed(any(), any())).thenReturn(true);
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.processMessageBatch(List.of(payment, cancel));
+
+        verify(assetLedgerRepository, times(1)).append(List.of(
+                new LedgerEntry(uid, "Bank", first, "PAYMENT", -10000),
+                new LedgerEntry(uid, "Credit Card", first, "PAYMENT", 10000),
+                new LedgerEntry(uid, "Bank", second, "CANCEL", 3000),
+                new LedgerEntry(uid, "Credit Card", second, "CANCEL", -3000)));
+        verify(assetRepository).updateBalance(uid, "Bank", -7000);
+        verify(assetRepository).updateBalance(uid, "Credit Card", 7000);
+    }
+
+    @Test
+    void testCreateAssetOpensLedger() {
+        String email = "test@gmail.com";
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AssetDTO assetDTO = new AssetDTO("Bank","bank", 10000.0, "Purple");
+
+        when(assetMapper.convertToEntity(assetDTO)).thenReturn(createAsset("Bank","bank", 10000.0));
+        when(assetRepository.saveAndFlush(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
+
+        assetSummaryService.createAsset(uid, email, assetDTO);
+
+        verify(assetLedgerRepository).append(List.of(LedgerEntry.opening(uid, "Bank", 1000000)));
+    }
+
+    @Test
+    void testProcessMessageBatchMissingAsset() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AssetMessage cancel = new AssetMessage();
+        cancel.setUid(uid);
+        cancel.setCancel(PaymentDTO.builder().amount(100.0).paymentFrom("Bank").paymentTo("Credit Card").build());
+        when(assetRepository.updateBalance(uid, "Bank", 10000)).thenReturn(1);
+        when(assetRepository.updateBalance(uid, "Credit Card", -10000)).thenReturn(0);
+
         assertThrows(
                 AssetNotFound.class,
-                () -> assetSummaryService.updateAssetWithMessageQueue(map_notFound),
+                () -> assetSummaryService.processMessageBatch(List.of(cancel)),
                 "Asset Not Found in given record"
         );
     }
 
+    @Test
+    void testProcessMessageCancel() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AssetMessage cancel = new AssetMessage();
+        cancel.setUid(uid);
+        cancel.setCancel(PaymentDTO.builder().amount(100.0).paymentFrom("Bank").paymentTo("Credit Card").build());
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.processMessage(cancel);
+
+        verify(assetRepository).updateBalance(uid, "Bank", 10000);
+        verify(assetRepository).updateBalance(uid, "Credit Card", -10000);
+        verifyNoMoreInteractions(assetRepository);
+    }
+
+    @Test
+    void testDuplicateMessageSkipped() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        UUID uuid = UUID.randomUUID();
+        AssetMessage message = new AssetMessage();
+        message.setUid(uid);
+        message.setRequestRecord(PaymentDTO.builder().uuid(uuid).amount(100.0).paymentFrom("Bank").paymentTo("Shop").build());
+        when(processedMessageRepository.markProcessed(uuid, MessageAction.PAYMENT)).thenReturn(false);
+
+        assetSummaryService.processMessage(message);
+
+        verifyNoInteractions(assetRepository);
+    }
+
+    @Test
+    void testNewMessageRecorded() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        UUID uuid = UUID.randomUUID();
+        AssetMessage message = new AssetMessage();
+        message.setUid(uid);
+        message.setRequestRecord(PaymentDTO.builder().uuid(uuid).amount(100.0).paymentFrom("Bank").paymentTo("Shop").build());
+        when(processedMessageRepository.markProcessed(uuid, MessageAction.PAYMENT)).thenReturn(true);
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.processMessage(message);
+
+        verify(processedMessageRepository).markProcessed(uuid, MessageAction.PAYMENT);
+        verify(assetRepository).updateBalance(uid, "Bank", -10000);
+    }
+
+    @Test
+    void testRepeatedEditsOfOnePaymentAreAllApplied() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        UUID payment = UUID.randomUUID();
+        Set<UUID> processed = new HashSet<>();
+        when(processedMessageRepository.markProcessed(any(), eq(MessageAction.REVERSE)))
+                .thenAnswer(invocation -> processed.add(invocation.getArgument(0)));
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        AssetMessage raise = edit(uid, payment, 100.0, 200.0);
+        assetSummaryService.processMessage(raise);
+        assetSummaryService.processMessage(edit(uid, payment, 200.0, 100.0));
+        assetSummaryService.processMessage(edit(uid, payment, 100.0, 200.0));
+        assetSummaryService.processMessage(raise);
+
+        verify(assetRepository, times(2)).updateBalance(uid, "Bank", -10000);
+        verify(assetRepository, times(1)).updateBalance(uid, "Bank", 10000);
+        verify(assetRepository, times(2)).updateBalance(uid, "Shop", 10000);
+        verify(assetRepository, times(1)).updateBalance(uid, "Shop", -10000);
+    }
+
+    @Test
+    void testEditWithoutMessageIdRejected() {
+        AssetMessage edit = edit("sdg3258rgdsjhgbj32dfgf8865", UUID.randomUUID(), 100.0, 200.0);
+        edit.setMessageId(null);
+
+        GlobalException exception = assertThrows(GlobalException.class, () -> assetSummaryService.processMessage(edit));
+
+        assertEquals("0222", exception.getCode());
+        verifyNoInteractions(processedMessageRepository, assetRepository);
+    }
+
+    @Test
+    void testNewCancellationRecorded() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        UUID uuid = UUID.randomUUID();
+        AssetMessage message = new AssetMessage();
+        message.setUid(uid);
+        message.setCancel(PaymentDTO.builder().uuid(uuid).amount(100.0).paymentFrom("Bank").paymentTo("Shop").build());
+        when(processedMessageRepository.markProcessed(uuid, MessageAction.CANCEL)).thenReturn(true);
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.processMessage(message);
+
+        verify(processedMessageRepository).markProcessed(uuid, MessageAction.CANCEL);
+        verify(assetRepository).updateBalance(uid, "Bank", 10000);
+    }
+
     @Test
     void testMissingUserInfo() {
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("email", "test@gmail.com");
+        AssetMessage message = new AssetMessage();
+        message.setEmail("test@gmail.com");
 
         assertThrows(
                 ForbiddenException.class,
-                () -> assetSummaryService.updateAssetWithMessageQueue(map),
+                () -> assetSummaryService.updateAssetWithMessageQueue(message),
                 "Missing user info"
         );
     }
@@ -403,20 +756,35 @@ class AssetSummaryServiceTest {
     void testGetAsset() {
         String email = "test@gmail.com";
         String uid = "sdg3258rgdsjhgbj32dfgf8865";
-        List<Asset> assetList = new ArrayList<>();
-        assetList.add(createAsset("Bank","bank", 10000.0, email, uid));
-        assetList.add(createAsset("Credit Card","credit card", -500.0, email, uid));
-        assetList.add(createAsset("Debit Card","debit card", 2000.0, email, uid));
 
         List<AssetDTO> assetDTOList = new ArrayList<>();
         assetDTOList.add(new AssetDTO("Bank","bank", 10000.0, "Purple"));
         assetDTOList.add(new AssetDTO("Credit Card","credit card", -500.0, "Purple"));
         assetDTOList.add(new AssetDTO("Debit Card","debit card", 2000.0, "Purple"));
 
-        Mockito.when(assetRepository.findByEmailAndUID(email, uid)).thenReturn(Optional.of(assetList));
-        Mockito.when(assetMapper.convertToDtoList(assetList)).thenReturn(assetDTOList);
+        AssetVersion version = new AssetVersion(5, LocalDateTime.now());
+        Mockito.when(assetRepository.findDtoByEmailAndUID(email, uid)).thenReturn(assetDTOList);
+        when(assetVersionRepository.findByUid(uid)).thenReturn(Optional.of(version));
 
-        assertEquals(assetDTOList, assetSummaryService.getAsset(uid, email));
+        assertEquals(version, assetSummaryService.getAssetVersion(uid));
+        assertEquals(new VersionedAssets(version, assetDTOList), assetSummaryService.getAsset(uid, email, version));
+        verify(assetCache).get(eq(uid), eq(email), eq(version), any());
+        verifyNoInteractions(assetMapper);
+    }
+
+    @Test
+    void testWritesInvalidateCachedAssets() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AssetMessage message = new AssetMessage();
+        message.setUid(uid);
+        message.setRequestRecord(PaymentDTO.builder().amount(100.0).paymentFrom("Bank").paymentTo("Shop").build());
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+        when(assetRepository.findByNameAndUID("Bank", uid)).thenReturn(Optional.of(createAsset("Bank", "bank", 0.0)));
+
+        assetSummaryService.processMessage(message);
+        assetSummaryService.deleteAsset(uid, new AssetDTO("Bank", "bank", 0.0, "Purple"));
+
+        verify(assetCache, times(2)).invalidate(uid);
     }
 
     @Test
@@ -424,15 +792,205 @@ class AssetSummaryServiceTest {
         String email = "test@gmail.com";
         String uid = "sdg3258rgdsjhgbj32dfgf8865";
 
-        Mockito.when(assetRepository.findByEmailAndUID(email, uid)).thenReturn(Optional.empty());
+        Mockito.when(assetRepository.findDtoByEmailAndUID(email, uid)).thenReturn(List.of());
 
         assertThrows(
                 AssetNotFound.class,
-                () -> assetSummaryService.getAsset(uid, email),
+                () -> assetSummaryService.getAsset(uid, email, AssetVersion.INITIAL),
                 "No Assets found"
         );
     }
 
+    @Test
+    void testWritesBumpAssetVersion() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        PaymentDTO paymentDTO = createPayment("Bank", "Credit Card", 100);
+
+        when(assetRepository.updateBalance(anyString(), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.updateAsset(uid, paymentDTO, false);
+
+        verify(assetVersionRepository, times(1)).bump(uid);
+        verify(assetCache, times(1)).invalidate(uid);
+    }
+
+    @Test
+    void testGetAssetOfUserWithoutVersion() {
+        String email = "test@gmail.com";
+        String uid = "new-user";
+        List<AssetDTO> assetDTOList = List.of(new AssetDTO("Bank","bank", 10000.0, "Purple"));
+
+        when(assetRepository.findDtoByEmailAndUID(email, uid)).thenReturn(assetDTOList);
+        when(assetVersionRepository.findByUid(uid)).thenReturn(Optional.empty());
+
+        assertEquals(AssetVersion.INITIAL, assetSummaryService.getAssetVersion(uid));
+        assertEquals(AssetVersion.INITIAL, assetSummaryService.getAsset(uid, email, AssetVersion.INITIAL).version());
+    }
+
+    @Test
+    void testGetAssetPage() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        String email = "test@gmail.com";
+        ReflectionTestUtils.setField(assetSummaryService, "pageMaxSize", 2);
+        List<AssetDTO> firstPage = List.of(
+                new AssetDTO("Credit Card","credit card", -500.0, "Purple"),
+                new AssetDTO("Debit Card","debit card", 2000.0, "Purple"));
+
+        when(assetRepository.findDtoPageOrderByBalance(uid, email, Long.MIN_VALUE, "", Pageable.ofSize(2)))
+                .thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(2), true));
+
+        AssetPage page = assetSummaryService.getAssetPage(uid, email, AssetSort.BALANCE, null, 50);
+
+        assertEquals(firstPage, page.getAssets());
+        assertNotNull(page.getNextCursor());
+
+        List<AssetDTO> lastPage = List.of(new AssetDTO("Bank","bank", 10000.0, "Purple"));
+        when(assetRepository.findDtoPageOrderByBalance(uid, email, 200000, "Debit Card", Pageable.ofSize(2)))
+                .thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(2), false));
+
+        AssetPage next = assetSummaryService.getAssetPage(uid, email, AssetSort.BALANCE, page.getNextCursor(), 2);
+
+        assertEquals(lastPage, next.getAssets());
+        assertNull(next.getNextCursor());
+        verify(assetRepository, never()).findDtoByEmailAndUID(anyString(), anyString());
+        verify(assetRepository, never()).count();
+    }
+
+    @Test
+    void testGetAssetPageInvalidCursor() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        String email = "test@gmail.com";
+        String nameCursor = AssetCursor.after(AssetSort.NAME, new AssetDTO("Bank","bank", 10000.0, "Purple")).encode();
+
+        GlobalException exception = assertThrows(GlobalException.class,
+                () -> assetSummaryService.getAssetPage(uid, email, AssetSort.BALANCE, nameCursor, 10));
+        assertEquals("0215", exception.getCode());
+        assertThrows(GlobalException.class, () -> assetSummaryService.getAssetPage(uid, email, AssetSort.NAME, "not a cursor!", 10));
+    }
+
+    @Test
+    void testUpdateAssetMaintainsSummary() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        when(assetRepository.updateBalance(anyString(), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.updateAsset(uid, createPayment("Bank", "Credit Card", 100), false);
+
+        ArgumentCaptor<List<SummaryChange>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(userSummaryRepository).apply(eq(uid), argumentCaptor.capture());
+        assertEquals(Set.of(new SummaryChange("Bank", -10000, 0), new SummaryChange("Credit Card", 10000, 0)),
+                new HashSet<>(argumentCaptor.getValue()));
+    }
+
+    @Test
+    void testDeleteAssetMaintainsSummary() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AssetDTO assetDTO = new AssetDTO("Bank","bank", 10000.0, "Purple");
+
+        when(assetRepository.findByNameAndUID(assetDTO.getName(), uid)).thenReturn(Optional.of(createAsset("Bank","bank", 10000.0)));
+        assetSummaryService.deleteAsset(uid, assetDTO);
+
+        verify(userSummaryRepository).apply(uid, List.of(new SummaryChange("Bank", -1000000, -1)));
+    }
+
+    @Test
+    void testDeleteForeignCurrencyAssetRemovesWhatItAdded() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AssetDTO assetDTO = new AssetDTO("Wallet","cash", 100.0, "Green");
+        Asset wallet = createAsset("Wallet","cash", 100.0);
+        wallet.setCurrency("USD");
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.8)));
+        when(assetMapper.convertToEntity(assetDTO)).thenReturn(wallet);
+        when(assetRepository.saveAndFlush(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
+        assetSummaryService.createAsset(uid, "test@gmail.com", assetDTO);
+
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.85)));
+        when(assetRepository.findByNameAndUID(assetDTO.getName(), uid)).thenReturn(Optional.of(wallet));
+        assetSummaryService.deleteAsset(uid, assetDTO);
+
+        verify(userSummaryRepository).apply(uid, List.of(new SummaryChange("Wallet", 10000, 1)));
+        verify(userSummaryRepository).apply(uid, List.of(new SummaryChange("Wallet", -10000, -1)));
+    }
+
+    @Test
+    void testGetAssetSummary() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.8)));
+        when(userSummaryRepository.findByDimension(uid, UserSummaryRepository.TYPE)).thenReturn(List.of(
+                new UserSummaryRepository.Total("bank", "HKD", 1000000, 1),
+                new UserSummaryRepository.Total("bank", "USD", 10000, 1),
+                new UserSummaryRepository.Total("credit card", "HKD", -50000, 1)));
+        when(userSummaryRepository.findByDimension(uid, UserSummaryRepository.COLOR)).thenReturn(List.of(
+                new UserSummaryRepository.Total("Purple", "HKD", 950000, 2),
+                new UserSummaryRepository.Total("Purple", "USD", 10000, 1)));
+
+        assertEquals(new UserSummaryDTO(10280.0,
+                        List.of(new SummaryTotalDTO("bank", 10780.0, 2), new SummaryTotalDTO("credit card", -500.0, 1)),
+                        List.of(new SummaryTotalDTO("Purple", 10280.0, 3))),
+                assetSummaryService.getAssetSummary(uid));
+        verifyNoInteractions(assetRepository);
+    }
+
+    @Test
+    void testGetAssetHistory() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        String email = "test@gmail.com";
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 3, 31);
+
+        when(assetHistoryRepository.findBalancesBefore(uid, email, from)).thenReturn(Map.of(
+                "Bank", new AssetHistoryRepository.Point("Bank", LocalDate.of(2024, 12, 30), 90000, "HKD"),
+                "Wallet", new AssetHistoryRepository.Point("Wallet", LocalDate.of(2024, 11, 2), 500, "JPY")));
+        when(assetHistoryRepository.findSeries(uid, email, from, to, HistoryBucket.MONTH)).thenReturn(List.of(
+                new AssetHistoryRepository.Point("Bank", LocalDate.of(2025, 2, 1), 100000, "HKD"),
+                new AssetHistoryRepository.Point("Bank", LocalDate.of(2025, 3, 1), 110000, "HKD"),
+                new AssetHistoryRepository.Point("Credit Card", LocalDate.of(2025, 1, 1), -50000, "HKD")));
+
+        List<AssetSeriesDTO> series = assetSummaryService.getAssetHistory(uid, email, from, to, HistoryBucket.MONTH);
+
+        assertEquals(List.of(
+                new AssetSeriesDTO("Bank", List.of(
+                        new BalancePointDTO(from, 900.0),
+                        new BalancePointDTO(LocalDate.of(2025, 2, 1), 1000.0),
+                        new BalancePointDTO(LocalDate.of(2025, 3, 1), 1100.0)), "HKD"),
+                new AssetSeriesDTO("Credit Card", List.of(new BalancePointDTO(from, -500.0)), "HKD"),
+                new AssetSeriesDTO("Wallet", List.of(new BalancePointDTO(from, 500.0)), "JPY")), series);
+        verifyNoInteractions(assetRepository);
+    }
+
+    @Test
+    void testGetAssetHistoryInvalidRange() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        LocalDate from = LocalDate.of(2025, 1, 1);
+
+        GlobalException exception = assertThrows(GlobalException.class,
+                () -> assetSummaryService.getAssetHistory(uid, "test@gmail.com", from, from.minusDays(1), HistoryBucket.DAY));
+        assertEquals("0216", exception.getCode());
+        assertThrows(GlobalException.class,
+                () -> assetSummaryService.getAssetHistory(uid, "test@gmail.com", from, from.plusYears(10), HistoryBucket.DAY));
+    }
+
+    @Test
+    void testExportAssets() throws Exception {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<AssetDTO> assets = Stream.of(
+                new AssetDTO("Bank","bank", 10000.0, "Purple"),
+                new AssetDTO("Credit Card","credit card", -500.0, "Purple")).onClose(() -> closed.set(true));
+
+        when(assetJdbcRepository.streamDtoByUID(uid)).thenReturn(assets);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assetSummaryService.exportAssets(uid, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(new AssetDTO("Bank","bank", 10000.0, "Purple"), objectMapper.readValue(lines[0], AssetDTO.class));
+        assertEquals(new AssetDTO("Credit Card","credit card", -500.0, "Purple"), objectMapper.readValue(lines[1], AssetDTO.class));
+        assertTrue(out.toString(StandardCharsets.UTF_8).endsWith("\n"));
+        assertTrue(closed.get());
+        verify(assetRepository, never()).findDtoByEmailAndUID(anyString(), anyString());
+    }
+
     @Test
     void testCancelTransaction() {
         String assetTo = "Credit Card";
@@ -448,26 +1006,16 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetFrom)
                 .paymentTo(assetTo)
                 .build();
-        Asset bank = createAsset("Bank", "bank account", 30000.0);
-        AssetDTO bankDTO = new AssetDTO("Bank", "bank account", 30000.0, "Purple");
-        Asset creditCard = createAsset("Credit Card", "credit card", 10000.0);
-        AssetDTO creditCardDTO = new AssetDTO("Credit Card", "credit card", 10000.0, "Purple");
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("cancel", paymentDTO);
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.of(bank));
-        when(assetRepository.findByNameAndUID(assetTo, uid)).thenReturn(Optional.of(creditCard));
-        when(assetRepository.save(isA(Asset.class))).thenAnswer(AdditionalAnswers.returnsFirstArg());
-        when(assetMapper.convertToDto(bank)).thenReturn(bankDTO);
-        when(assetMapper.convertToDto(creditCard)).thenReturn(creditCardDTO);
-
-        assetSummaryService.cancelTransaction(map);
-        ArgumentCaptor<Asset> argumentCaptor = ArgumentCaptor.forClass(Asset.class);
-        verify(assetRepository, times(2)).save(argumentCaptor.capture());
-        List<Asset> assets = argumentCaptor.getAllValues();
-        assertEquals(35000, assets.get(0).getBalance());
-        assertEquals(5000, assets.get(1).getBalance());
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setCancel(paymentDTO);
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(1);
+
+        assetSummaryService.cancelTransaction(message);
+        verify(assetRepository).updateBalance(uid, assetFrom, 500000);
+        verify(assetRepository).updateBalance(uid, assetTo, -500000);
+        verify(assetRepository, never()).save(isA(Asset.class));
     }
 
     @Test
@@ -485,16 +1033,15 @@ class AssetSummaryServiceTest {
                 .paymentFrom(assetFrom)
                 .paymentTo(assetTo)
                 .build();
-        HashMap<String, Object> map = new HashMap<>();
-        map.put("uid", "sdg3258rgdsjhgbj32dfgf8865");
-        map.put("email", "test@gmail.com");
-        map.put("cancel", paymentDTO);
-        when(assetRepository.findByNameAndUID(assetFrom, uid)).thenReturn(Optional.empty());
-        when(assetRepository.findByNameAndUID(assetTo, uid)).thenReturn(Optional.empty());
+        AssetMessage message = new AssetMessage();
+        message.setUid("sdg3258rgdsjhgbj32dfgf8865");
+        message.setEmail("test@gmail.com");
+        message.setCancel(paymentDTO);
+        when(assetRepository.updateBalance(eq(uid), anyString(), anyLong())).thenReturn(0);
 
         assertThrows(
                 AssetNotFound.class,
-                () -> assetSummaryService.cancelTransaction(map),
+                () -> assetSummaryService.cancelTransaction(message),
                 "Asset Not Found in given record"
         );
 
@@ -527,24 +1074,209 @@ class AssetSummaryServiceTest {
         );
     }
 
-    private Asset createAsset(String name, String type, Double balance) {
+    @Test
+    void testCreateAssets() {
+        String email = "test@gmail.com";
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        List<AssetDTO> requests = List.of(
+                new AssetDTO("Bank","bank", 10000.0, "Purple"),
+                new AssetDTO("Credit Card","credit card", 0.0, "Purple"));
+
+        when(assetRepository.findByUIDAndNameIn(eq(uid), anyCollection())).thenReturn(List.of());
+        when(assetMapper.convertToEntityList(requests)).thenReturn(new ArrayList<>(List.of(
+                createAsset("Bank","bank", 10000.0),
+                createAsset("Credit Card","credit card", 0.0))));
+
+        assetSummaryService.createAssets(uid, email, requests);
+
+        ArgumentCaptor<List<Asset>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(assetRepository, times(1)).findByUIDAndNameIn(eq(uid), anyCollection());
+        verify(assetRepository, times(1)).saveAll(argumentCaptor.capture());
+        verify(assetRepository, never()).findByNameAndUID(anyString(), anyString());
+        assertEquals(2, argumentCaptor.getValue().size());
+        assertTrue(argumentCaptor.getValue().stream().allMatch(asset -> uid.equals(asset.getUID()) && email.equals(asset.getEmail())));
+        verify(assetCache).invalidate(uid);
+        verify(replicaRouting).recordWrite(uid);
+    }
+
+    @Test
+    void testCreateAssetsAlreadyExist() {
+        String email = "test@gmail.com";
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        List<AssetDTO> requests = List.of(
+                new AssetDTO("Bank","bank", 10000.0, "Purple"),
+                new AssetDTO("Credit Card","credit card", 0.0, "Purple"));
+
+        when(assetRepository.findByUIDAndNameIn(eq(uid), anyCollection()))
+                .thenReturn(List.of(createAsset("Bank","bank", 10000.0, email, uid)));
+
+        assertThrows(AssetAlreadyExisting.class, () -> assetSummaryService.createAssets(uid, email, requests));
+        verify(assetRepository, never()).saveAll(any());
+
+        List<AssetDTO> duplicated = List.of(
+                new AssetDTO("Bank","bank", 10000.0, "Purple"),
+                new AssetDTO("Bank","bank", 0.0, "Purple"));
+
+        assertThrows(AssetAlreadyExisting.class, () -> assetSummaryService.createAssets(uid, email, duplicated));
+        verify(assetRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testImportAssets() throws Exception {
+        String email = "test@gmail.com";
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        ReflectionTestUtils.setField(assetSummaryService, "importChunkSize", 2);
+        String csv = """
+                name,type,balance,color
+                Bank,bank,10000,Purple
+                "Card, Visa",credit card,-500.5,Purple
+                Wallet,cash,abc,Purple
+                Bank,bank,1,Purple
+                Savings,bank,300,Purple
+                Debit Card,debit card,20
+                """;
+
+        when(assetRepository.findByUIDAndNameIn(eq(uid), anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<String>>getArgument(1).contains("Savings")
+                        ? List.of(createAsset("Bank", "bank", 10000.0, email, uid), createAsset("Savings", "bank", 0.0, email, uid))
+                        : List.of());
+        when(assetMapper.convertToEntity(isA(AssetDTO.class))).thenAnswer(invocation -> {
+            AssetDTO row = invocation.getArgument(0);
+            return createAsset(row.getName(), row.getType(), row.getBalance());
+        });
+
+        AssetImportResult result = assetSummaryService.importAssets(uid, email, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        ArgumentCaptor<List<Asset>> argumentCaptor = ArgumentCaptor.forClass(List.class);
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(assetRepository, times(2)).saveAll(argumentCaptor.capture());
+        assertEquals(List.of("Bank", "Card, Visa"), argumentCaptor.getAllValues().get(0).stream().map(Asset::getName).toList());
+        assertEquals(-50050L, argumentCaptor.getAllValues().get(0).get(1).getBalance());
+        assertTrue(argumentCaptor.getAllValues().get(1).isEmpty());
+        assertEquals(2, result.getImported());
+        assertEquals(List.of(4L, 5L, 6L, 7L), result.getErrors().stream().map(ImportRowError::getLine).toList());
+        assertEquals(List.of("0210", "0200", "0200", "0210"), result.getErrors().stream().map(ImportRowError::getCode).toList());
+        verify(assetCache).invalidate(uid);
+    }
+
+    @Test
+    void testImportAssetsInvalidHeader() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        String csv = "name,balance\nBank,100\n";
+
+        GlobalException exception = assertThrows(GlobalException.class,
+                () -> assetSummaryService.importAssets(uid, "test@gmail.com", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+        assertEquals("0214", exception.getCode());
+        verify(assetRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void testUpdateAssets() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        Asset bank = createAsset("Bank", "bank", 10000.0, "test@gmail.com", uid);
+        bank.setId(1L);
+        Asset creditCard = createAsset("Credit Card", "credit card", -500.0, "test@gmail.com", uid);
+        creditCard.setId(2L);
+
+        List<PaymentDTO> requests = List.of(
+                createPayment("Bank", "Credit Card", 100),
+                createPayment("Bank", "Credit Card", 50),
+                createPayment("Credit Card", "Bank", 30));
+
+        when(assetRepository.findByUIDAndNameIn(eq(uid), anyCollection())).thenReturn(List.of(bank, creditCard));
+
+        List<PaymentResult> results = assetSummaryService.updateAssets(uid, requests);
+
+        ArgumentCaptor<SortedMap<Long, Long>> argumentCaptor = ArgumentCaptor.forClass(SortedMap.class);
+        verify(assetRepository, times(1)).findByUIDAndNameIn(eq(uid), anyCollection());
+        verify(assetJdbcRepository, times(1)).addToBalances(argumentCaptor.capture());
+        verify(assetRepository, never()).updateBalance(anyString(), anyString(), anyLong());
+        assertEquals(Map.of(1L, -12000L, 2L, 12000L), argumentCaptor.getValue());
+        assertTrue(results.stream().allMatch(result -> "SUCCESS".equals(result.getStatus())));
+        verify(assetCache).invalidate(uid);
+    }
+
+    @Test
+    void testUpdateAssetsReportsFailedItems() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        Asset bank = createAsset("Bank", "bank", 10000.0, "test@gmail.com", uid);
+        bank.setId(1L);
+        Asset creditCard = createAsset("Credit Card", "credit card", -500.0, "test@gmail.com", uid);
+        creditCard.setId(2L);
+
+        PaymentDTO invalid = createPayment("Bank", "Credit Card", 100);
+        invalid.setCategory(null);
+        List<PaymentDTO> requests = List.of(
+                createPayment("Bank", "Credit Card", 100),
+                invalid,
+                createPayment("Bank", "Friend", 20));
+
+        when(assetRepository.findByUIDAndNameIn(eq(uid), anyCollection())).thenReturn(List.of(bank, creditCard));
+
+        List<PaymentResult> results = assetSummaryService.updateAssets(uid, requests);
+
+        ArgumentCaptor<SortedMap<Long, Long>> argumentCaptor = ArgumentCaptor.forClass(SortedMap.class);
+        verify(assetJdbcRepository).addToBalances(argumentCaptor.capture());
+        assertEquals(Map.of(1L, -10000L, 2L, 10000L), argumentCaptor.getValue());
+        assertEquals("SUCCESS", results.get(0).getStatus());
+        assertEquals("0210", results.get(1).getCode());
+        assertEquals("0202", results.get(2).getCode());
+        assertEquals(2, results.get(2).getIndex());
+    }
+
+    @Test
+    void testUpdateAssetsTooMany() {
+        String uid = "sdg3258rgdsjhgbj32dfgf8865";
+        ReflectionTestUtils.setField(assetSummaryService, "bulkMaxSize", 1);
+
+        List<PaymentDTO> requests = List.of(createPayment("Bank", "Credit Card", 100), createPayment("Bank", "Credit Card", 50));
+
+        GlobalException exception = assertThrows(GlobalException.class, () -> assetSummaryService.updateAssets(uid, requests));
+        assertEquals("0213", exception.getCode());
+        verifyNoInteractions(assetJdbcRepository);
+    }
+
+    private AssetMessage edit(String uid, UUID payment, double from, double to) {
+        AssetMessage message = new AssetMessage();
+        message.setMessageId(UUID.randomUUID());
+        message.setUid(uid);
+        message.setReverseRecord(PaymentDTO.builder().uuid(payment).amount(from).paymentFrom("Shop").paymentTo("Bank").build());
+        message.setRequestRecord(PaymentDTO.builder().uuid(payment).amount(to).paymentFrom("Bank").paymentTo("Shop").build());
+        return message;
+    }
+
+    private PaymentDTO createPayment(String from, String to, double amount) {
+        return PaymentDTO.builder()
+                .uuid(UUID.randomUUID())
+                .amount(amount)
+                .currency("HKD")
+                .date(LocalDate.now())
+                .category("Food")
+                .description("Lunch")
+                .paymentFrom(from)
+                .paymentTo(to)
+                .paymentMethod("FPS")
+                .build();
+    }
+
+    private Asset createAsset(String name, String type, double balance) {
         Asset asset = new Asset();
         asset.setName(name);
         asset.setType(type);
-        asset.setBalance(balance);
+        asset.setBalance(Money.toMinor(balance, Money.DEFAULT_CURRENCY));
         asset.setCreated_Date(LocalDateTime.now());
         asset.setUpdated_Date(LocalDateTime.now());
         asset.setColor("Purple");
         return asset;
     }
 
-    private Asset createAsset(String name, String type, Double balance, String email, String uid) {
+    private Asset createAsset(String name, String type, double balance, String email, String uid) {
         Asset asset = new Asset();
         asset.setEmail(email);
         asset.setUID(uid);
         asset.setName(name);
         asset.setType(type);
-        asset.setBalance(balance);
+        asset.setBalance(Money.toMinor(balance, Money.DEFAULT_CURRENCY));
         asset.setCreated_Date(LocalDateTime.now());
         asset.setUpdated_Date(LocalDateTime.now());
         return asset;
@@ -0,0 +1,61 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.dto.FxRate;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion overhead per transfer: two {@link FxRateTable#convert} calls, into the sending and the receiving asset's
+ * currency. {@code sameCurrency} is a payment between assets held in its own currency, which returns the amount as
+ * is; {@code crossCurrency} rotates through listed, inverse and crossed pairs. Run {@link #main} for time per
+ * transfer and, through the GC profiler, bytes per transfer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FxConversionBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "HKD", "JPY", "EUR"};
+
+    private FxRateTable fxRateTable;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        fxRateTable = new FxRateTable(null);
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.8), new FxRate("HKD", "JPY", 19.0), new FxRate("EUR", "HKD", 8.5)));
+    }
+
+    @Benchmark
+    public long sameCurrency() {
+        int i = next++;
+        String payment = CURRENCIES[i & 3];
+
+        return fxRateTable.convert(i, payment, payment) - fxRateTable.convert(i, payment, payment);
+    }
+
+    @Benchmark
+    public long crossCurrency() {
+        int i = next++;
+        String payment = CURRENCIES[i & 3];
+
+        return fxRateTable.convert(i, payment, CURRENCIES[(i + 1) & 3]) - fxRateTable.convert(i, payment, CURRENCIES[(i + 2) & 3]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FxConversionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
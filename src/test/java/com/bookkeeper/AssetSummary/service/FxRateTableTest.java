@@ -0,0 +1,61 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.dto.FxRate;
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+import com.bookkeeper.AssetSummary.repository.FxRateRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FxRateTableTest {
+
+    private final FxRateRepository fxRateRepository = mock(FxRateRepository.class);
+
+    private final FxRateTable fxRateTable = new FxRateTable(fxRateRepository);
+
+    @Test
+    void testConvertUsesCurrencyScales() {
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.8), new FxRate("HKD", "JPY", 19.0)));
+
+        assertEquals(7995L, fxRateTable.convert(1025L, "USD", "HKD"));
+        assertEquals(19L, fxRateTable.convert(100L, "HKD", "JPY"));
+        assertEquals(-1000L, fxRateTable.convert(-7800L, "HKD", "USD"));
+        assertEquals(1519L, fxRateTable.convert(1025L, "USD", "JPY"));
+        assertEquals(1234L, fxRateTable.convert(1234L, "EUR", "EUR"));
+        assertEquals(1234L, fxRateTable.convert(1234L, null, "HKD"));
+    }
+
+    @Test
+    void testListedRateWinsOverInverse() {
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.8), new FxRate("HKD", "USD", 0.125)));
+
+        assertEquals(7800L, fxRateTable.convert(1000L, "USD", "HKD"));
+        assertEquals(125L, fxRateTable.convert(1000L, "HKD", "USD"));
+    }
+
+    @Test
+    void testUnsupportedPair() {
+        fxRateTable.load(List.of(new FxRate("USD", "HKD", 7.8), new FxRate("usd", "EUR", 0.9), new FxRate("GBP", "HKD", 0)));
+
+        assertEquals("0217", assertThrows(GlobalException.class, () -> fxRateTable.convert(100L, "EUR", "HKD")).getCode());
+        assertEquals("0217", assertThrows(GlobalException.class, () -> fxRateTable.convert(100L, "GBP", "HKD")).getCode());
+        assertEquals("0217", assertThrows(GlobalException.class, () -> fxRateTable.convert(100L, "US", "HKD")).getCode());
+    }
+
+    @Test
+    void testRefreshSwapsWholeTable() {
+        when(fxRateRepository.findAll())
+                .thenReturn(List.of(new FxRate("USD", "HKD", 7.8)))
+                .thenReturn(List.of(new FxRate("EUR", "HKD", 8.5)));
+
+        fxRateTable.refresh();
+        assertEquals(780L, fxRateTable.convert(100L, "USD", "HKD"));
+
+        fxRateTable.refresh();
+        assertEquals(850L, fxRateTable.convert(100L, "EUR", "HKD"));
+        assertThrows(GlobalException.class, () -> fxRateTable.convert(100L, "USD", "HKD"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.exception.GlobalException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OptimisticRetry optimisticRetry = new OptimisticRetry(meterRegistry, 4, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Test
+    void testRetriesUntilSuccess() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = optimisticRetry.call("updateAsset", () -> {
+            if(attempts.incrementAndGet() < 3)
+                throw new ObjectOptimisticLockingFailureException("Asset", 1L);
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+        assertEquals(1, count("asset.mutation.executions", "updateAsset"));
+        assertEquals(2, count("asset.mutation.conflicts", "updateAsset"));
+        assertEquals(2, count("asset.mutation.retries", "updateAsset"));
+        assertEquals(0, count("asset.mutation.exhausted", "updateAsset"));
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        GlobalException exception = assertThrows(GlobalException.class, () -> optimisticRetry.run("processMessageBatch", () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockException("stale");
+        }));
+
+        assertEquals("0221", exception.getCode());
+        assertEquals(4, attempts.get());
+        assertEquals(4, count("asset.mutation.conflicts", "processMessageBatch"));
+        assertEquals(3, count("asset.mutation.retries", "processMessageBatch"));
+        assertEquals(1, count("asset.mutation.exhausted", "processMessageBatch"));
+    }
+
+    @Test
+    void testOtherFailuresAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> optimisticRetry.run("updateAsset", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("invalid");
+        }));
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, count("asset.mutation.conflicts", "updateAsset"));
+    }
+
+    private double count(String name, String operation) {
+        Counter counter = meterRegistry.find(name).tag("operation", operation).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,87 @@
+package com.bookkeeper.AssetSummary.service;
+
+import com.bookkeeper.AssetSummary.model.dto.Money;
+import com.bookkeeper.AssetSummary.model.dto.PaymentDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic of one transfer between two assets, the part of the update path that runs in the JVM before
+ * any statement is sent. {@code boxedDoubles} is how balances used to be kept: a {@code Double} on each asset,
+ * read, changed by the payment's {@code Double} amount and written back. {@code minorUnits} is the current path:
+ * the amount is rounded once to minor units with {@link Money#toMinor} and added to {@code long} balances.
+ * Run {@link #main} for time per transfer and, through the GC profiler, bytes per transfer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransferPathBenchmark {
+
+    private static final int ASSETS = 8;
+
+    private static final int PAYMENTS = 1024;
+
+    private final PaymentDTO[] payments = new PaymentDTO[PAYMENTS];
+
+    private final int[] from = new int[PAYMENTS];
+
+    private final int[] to = new int[PAYMENTS];
+
+    private final Double[] boxedBalances = new Double[ASSETS];
+
+    private final long[] minorBalances = new long[ASSETS];
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for(int i = 0; i < PAYMENTS; i++) {
+            PaymentDTO payment = new PaymentDTO();
+            payment.setAmount(random.nextInt(100_000) / 100.0);
+            payment.setCurrency(Money.DEFAULT_CURRENCY);
+            payments[i] = payment;
+            from[i] = random.nextInt(ASSETS);
+            to[i] = random.nextInt(ASSETS);
+        }
+        for(int i = 0; i < ASSETS; i++)
+            boxedBalances[i] = 10_000.0;
+    }
+
+    @Benchmark
+    public Double boxedDoubles() {
+        int i = next++ & (PAYMENTS - 1);
+        Double amount = payments[i].getAmount();
+
+        boxedBalances[from[i]] = boxedBalances[from[i]] - amount;
+        boxedBalances[to[i]] = boxedBalances[to[i]] + amount;
+        return boxedBalances[to[i]];
+    }
+
+    @Benchmark
+    public long minorUnits() {
+        int i = next++ & (PAYMENTS - 1);
+        PaymentDTO payment = payments[i];
+        long value = Money.toMinor(payment.getAmount(), payment.getCurrency());
+
+        minorBalances[from[i]] -= value;
+        minorBalances[to[i]] += value;
+        return minorBalances[to[i]];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}